@@ -0,0 +1,41 @@
+package org.example;
+
+import org.example.network.OutboundQueue;
+
+/**
+ * A client without a connection, used by the benchmarks. Everything sent to it is encoded and
+ * queued like for a real client, and then discarded instead of written.
+ */
+class BenchmarkClientHandler extends ClientHandler {
+
+  /**
+   * Creates a new instance of {@code BenchmarkClientHandler}.
+   *
+   * @param server      the server the client belongs to
+   * @param hostAddress the IP address the client pretends to connect from
+   */
+  BenchmarkClientHandler(Server server, String hostAddress) {
+    super(server, hostAddress);
+  }
+
+  /**
+   * Creates a client that has been given a username.
+   *
+   * @param server      the server the client belongs to
+   * @param hostAddress the IP address the client pretends to connect from
+   * @return the client
+   */
+  static BenchmarkClientHandler connect(Server server, String hostAddress) {
+    BenchmarkClientHandler client = new BenchmarkClientHandler(server, hostAddress);
+    client.handleMessage("REQUEST_USERNAME " + Server.VERSION);
+    return client;
+  }
+
+  @Override
+  protected void scheduleDrain() {
+    OutboundQueue outboundQueue = this.getOutboundQueue();
+    do {
+      outboundQueue.clear();
+    } while (outboundQueue.finishDrain());
+  }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.example.log.Level;
+
+/**
+ * Creates servers for the benchmarks. The servers are never started; they store their data in a
+ * temporary directory and only log warnings and errors.
+ */
+final class BenchmarkServers {
+
+  private BenchmarkServers() {
+  }
+
+  /**
+   * Creates a server storing its data in a new temporary directory.
+   *
+   * @return the server
+   * @throws IOException if the temporary directory could not be created
+   */
+  static Server create() throws IOException {
+    ServerSettings settings = new ServerSettings();
+    settings.setDataDirectory(Files.createTempDirectory("shrimp-benchmark-"));
+    settings.setLogLevel(Level.WARN);
+    settings.setLobbyUpdateWindowMillis(0);
+    return new Server(settings);
+  }
+
+  /**
+   * Deletes the data directory of a server.
+   *
+   * @param server the server
+   * @throws IOException if the directory could not be listed
+   */
+  static void deleteData(Server server) throws IOException {
+    try (Stream<Path> paths = Files.walk(server.getSettings().getDataDirectory())) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+        try {
+          Files.delete(path);
+        }
+        catch (IOException exception) {
+          throw new UncheckedIOException(exception);
+        }
+      });
+    }
+  }
+}
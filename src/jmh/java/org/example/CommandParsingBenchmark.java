@@ -0,0 +1,77 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of parsing received lines the way {@link ClientHandler#handleMessage(String)}
+ * does, with one tokenizer reused for every line of a connection.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+  private final CommandTokenizer tokenizer = new CommandTokenizer();
+  private final String catchShrimp = "CATCH_SHRIMP 42";
+  private final String createLobby = "CREATE_LOBBY island 3 10 60 1.3.5 30 0 100";
+  private final String chatMessage = "CHAT_MESSAGE let⁞us⁞all⁞catch⁞twenty⁞this⁞round";
+
+  /**
+   * Parses a {@code CATCH_SHRIMP} line.
+   *
+   * @return the amount of shrimp
+   */
+  @Benchmark
+  public int parseCatchShrimp() {
+    this.tokenizer.reset(this.catchShrimp);
+    if (this.tokenizer.nextCommand() != Command.CATCH_SHRIMP) {
+      throw new IllegalStateException();
+    }
+    return this.tokenizer.nextInt();
+  }
+
+  /**
+   * Parses a {@code CREATE_LOBBY} line.
+   *
+   * @param blackhole consumes the parsed fields
+   */
+  @Benchmark
+  public void parseCreateLobby(Blackhole blackhole) {
+    this.tokenizer.reset(this.createLobby);
+    blackhole.consume(this.tokenizer.nextCommand());
+    blackhole.consume(this.tokenizer.nextString());
+    blackhole.consume(this.tokenizer.nextInt());
+    blackhole.consume(this.tokenizer.nextInt());
+    blackhole.consume(this.tokenizer.nextInt());
+    blackhole.consume(this.tokenizer.nextString());
+    blackhole.consume(this.tokenizer.nextInt());
+    blackhole.consume(this.tokenizer.nextInt());
+    blackhole.consume(this.tokenizer.nextInt());
+  }
+
+  /**
+   * Parses a {@code CHAT_MESSAGE} line.
+   *
+   * @return the chat message
+   */
+  @Benchmark
+  public String parseChatMessage() {
+    this.tokenizer.reset(this.chatMessage);
+    if (this.tokenizer.nextCommand() != Command.CHAT_MESSAGE) {
+      throw new IllegalStateException();
+    }
+    return this.tokenizer.nextString();
+  }
+}
@@ -0,0 +1,226 @@
+package org.example;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.example.logic.Game;
+import org.example.logic.GameSettings;
+import org.example.logic.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the messages the server builds for its clients: the lobby list, the round
+ * results and the finished games read by admins.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+
+  /**
+   * A server with a number of open lobbies.
+   */
+  @State(Scope.Benchmark)
+  public static class Lobbies {
+    @Param({"1", "100", "1000"})
+    private int lobbies;
+
+    private Server server;
+    private BenchmarkClientHandler client;
+
+    /**
+     * Creates the server and its lobbies.
+     *
+     * @throws IOException if the data directory could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+      this.server = BenchmarkServers.create();
+      for (int index = 0; index < this.lobbies; index++) {
+        this.server.createLobby("lobby-" + index, 3, 10, 60, "1", 30, 0, 100);
+      }
+      this.client = BenchmarkClientHandler.connect(this.server, "10.0.0.1");
+    }
+
+    /**
+     * Deletes the data directory of the server.
+     *
+     * @throws IOException if the directory could not be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+      BenchmarkServers.deleteData(this.server);
+    }
+  }
+
+  /**
+   * A server with a 3-player game that has just finished a round.
+   */
+  @State(Scope.Benchmark)
+  public static class RoundFinished {
+    private Server server;
+    private Game game;
+
+    /**
+     * Creates the server and plays the first round of the game.
+     *
+     * @throws IOException if the data directory could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+      this.server = BenchmarkServers.create();
+      List<Player> players = new ArrayList<>();
+      for (int seat = 0; seat < 3; seat++) {
+        Player player = BenchmarkClientHandler.connect(this.server, "10.0.0." + seat).getPlayer();
+        player.setShrimpCaught(20 + seat);
+        players.add(player);
+      }
+      this.game = new Game("island", 1, players, new GameSettings(3, 10, 60, "1", 30, 0, 100));
+      this.game.storeCurrentRound();
+    }
+
+    /**
+     * Deletes the data directory of the server.
+     *
+     * @throws IOException if the directory could not be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+      BenchmarkServers.deleteData(this.server);
+    }
+  }
+
+  /**
+   * A server with a history of finished 3-player games.
+   */
+  @State(Scope.Benchmark)
+  public static class FinishedGames {
+    @Param({"10", "1000", "10000"})
+    private int finishedGames;
+
+    @Param({"10", "50"})
+    private int rounds;
+
+    private Server server;
+    private BenchmarkClientHandler admin;
+    private int nextIndex;
+
+    /**
+     * Creates the server and plays the finished games.
+     *
+     * @throws IOException if the data directory could not be created
+     */
+    @Setup
+    public void setUp() throws IOException {
+      this.server = BenchmarkServers.create();
+      List<Player> players = new ArrayList<>();
+      for (int seat = 0; seat < 3; seat++) {
+        players.add(BenchmarkClientHandler.connect(this.server, "10.0.0." + seat).getPlayer());
+      }
+      GameSettings gameSettings = new GameSettings(3, this.rounds, 60, "1", 30, 0, 100);
+      for (int gameNumber = 1; gameNumber <= this.finishedGames; gameNumber++) {
+        Game game = new Game("island", gameNumber, players, gameSettings);
+        for (int roundNumber = 1; roundNumber <= this.rounds; roundNumber++) {
+          for (int seat = 0; seat < 3; seat++) {
+            players.get(seat).setShrimpCaught((gameNumber + roundNumber * 7 + seat * 13) % 100);
+          }
+          game.storeCurrentRound();
+        }
+        game.addMessage("player-0☐hello☐12:00:00");
+        this.server.endGame(game);
+      }
+      this.admin = BenchmarkClientHandler.connect(this.server, "10.0.1.1");
+      this.admin.getPlayer().setIsAdmin(true);
+    }
+
+    /**
+     * Picks the next finished game to read, spreading the reads over the whole history.
+     *
+     * @return the index of the finished game
+     */
+    int nextIndex() {
+      this.nextIndex = (this.nextIndex + 7919) % this.finishedGames;
+      return this.nextIndex;
+    }
+
+    /**
+     * Deletes the data directory of the server.
+     *
+     * @throws IOException if the directory could not be deleted
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+      BenchmarkServers.deleteData(this.server);
+    }
+  }
+
+  /**
+   * Builds the {@code UPDATE LOBBY} message sent to clients that have not subscribed to deltas.
+   *
+   * @param lobbies the server and its lobbies
+   * @return the message
+   */
+  @Benchmark
+  public String buildLobbyUpdate(Lobbies lobbies) {
+    LobbyUpdater lobbyUpdater = lobbies.server.getLobbyUpdater();
+    Map<String, String> snapshot = lobbyUpdater.takeSnapshot();
+    return lobbyUpdater.buildFullUpdate(snapshot);
+  }
+
+  /**
+   * Handles a {@code REQUEST_LOBBY_LIST} command, from parsing to queueing the reply.
+   *
+   * @param lobbies the server and its lobbies
+   * @return {@code true} if the connection stays open
+   */
+  @Benchmark
+  public boolean requestLobbyList(Lobbies lobbies) {
+    return lobbies.client.handleMessage("REQUEST_LOBBY_LIST");
+  }
+
+  /**
+   * Builds and queues the {@code UPDATE ROUND_FINISHED} messages of a round.
+   *
+   * @param roundFinished the server and its game
+   */
+  @Benchmark
+  public void sendRoundResults(RoundFinished roundFinished) {
+    roundFinished.server.sendRoundResultsToClients(roundFinished.game);
+  }
+
+  /**
+   * Reads the {@code UPDATE FINISHED_GAME} message of a finished game as a string.
+   *
+   * @param finishedGames the server and its history
+   * @return the message
+   */
+  @Benchmark
+  public String getFinishedGameData(FinishedGames finishedGames) {
+    return finishedGames.server.getFinishedGameData(finishedGames.nextIndex());
+  }
+
+  /**
+   * Queues the first page of finished games to an admin.
+   *
+   * @param finishedGames the server and its history
+   */
+  @Benchmark
+  public void sendFinishedGamesPage(FinishedGames finishedGames) {
+    finishedGames.server.sendFinishedGamesPage(finishedGames.admin, 0, 100, null, -1);
+  }
+}
@@ -0,0 +1,78 @@
+package org.example.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the round bookkeeping of a 3-player game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+  @Param({"10", "50"})
+  private int rounds;
+
+  private GameSettings gameSettings;
+  private List<Player> players;
+  private Round round;
+
+  /**
+   * Creates the players and settings shared by every invocation.
+   */
+  @Setup
+  public void setUp() {
+    this.gameSettings = new GameSettings(3, this.rounds, 60, "1", 30, 0, 100);
+    this.players = new ArrayList<>();
+    for (int seat = 0; seat < 3; seat++) {
+      this.players.add(new Player("player-" + seat, null, 5));
+    }
+    this.round = new Round(1, 3);
+  }
+
+  /**
+   * Plays every round of a game, storing each round once all players have caught shrimp.
+   *
+   * @return the finished game
+   */
+  @Benchmark
+  public Game storeAllRounds() {
+    Game game = new Game("island", 1, this.players, this.gameSettings);
+    for (int roundNumber = 1; roundNumber <= this.rounds; roundNumber++) {
+      for (int seat = 0; seat < 3; seat++) {
+        this.players.get(seat).setShrimpCaught(10 + seat * 15 + roundNumber % 7);
+      }
+      game.storeCurrentRound();
+    }
+    return game;
+  }
+
+  /**
+   * Calculates the shrimp price of a round.
+   *
+   * @return the shrimp price
+   */
+  @Benchmark
+  public int calculateShrimpPrice() {
+    this.round.setShrimpCaught(0, 20);
+    this.round.setShrimpCaught(1, 35);
+    this.round.setShrimpCaught(2, 50);
+    this.round.calculateShrimpPrice();
+    return this.round.getShrimpPrice();
+  }
+}
@@ -0,0 +1,176 @@
+package org.example.logic;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the heap retained by the stored rounds of a 3-player game, comparing the per-seat
+ * arrays of {@link Round} with the per-player maps rounds were stored in before.
+ * <p>
+ * Each layout is filled with the same rounds, and the heap in use after a full collection is
+ * compared with the heap in use before. Run with a fixed heap and the serial collector so the
+ * numbers are stable:
+ * <pre>
+ * java -Xms2g -Xmx2g -XX:+UseSerialGC -cp target/benchmarks.jar org.example.logic.RoundFootprint
+ * </pre>
+ * The number of rounds can be given as the only argument (default 200000).
+ */
+public class RoundFootprint {
+  private static final int SEATS = 3;
+
+  /**
+   * Runs the measurement.
+   *
+   * @param args the number of rounds to store, optionally
+   */
+  public static void main(String[] args) {
+    int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    List<Player> players = new ArrayList<>();
+    for (int seat = 0; seat < SEATS; seat++) {
+      players.add(new Player("player-" + seat, null, 5));
+    }
+    for (int pass = 0; pass < 2; pass++) {
+      double arrayBytes = measure(() -> storeArrayRounds(players, rounds)) / rounds;
+      double mapBytes = measure(() -> storeMapRounds(players, rounds)) / rounds;
+      if (pass == 1) {
+        System.out.printf("rounds: %d%n", rounds);
+        System.out.printf("per-seat arrays:  %8.1f bytes per round%n", arrayBytes);
+        System.out.printf("per-player maps:  %8.1f bytes per round%n", mapBytes);
+        System.out.printf("reduction:        %8.1fx%n", mapBytes / arrayBytes);
+      }
+    }
+  }
+
+  /**
+   * Stores rounds the way {@link Game#storeCurrentRound()} does.
+   *
+   * @param players the players of the game
+   * @param rounds  the number of rounds to store
+   * @return the game holding the rounds
+   */
+  private static Object storeArrayRounds(List<Player> players, int rounds) {
+    GameSettings gameSettings = new GameSettings(SEATS, rounds, 60, "1", 30, 0, 100);
+    Game game = new Game("island", 1, players, gameSettings);
+    for (int roundNumber = 1; roundNumber <= rounds; roundNumber++) {
+      for (int seat = 0; seat < SEATS; seat++) {
+        players.get(seat).setShrimpCaught(shrimpCaught(seat, roundNumber));
+      }
+      game.storeCurrentRound();
+    }
+    return game;
+  }
+
+  /**
+   * Stores rounds the way they were stored before the per-seat arrays: a
+   * {@code HashMap<Integer, MapRound>} of rounds, each with a map per result.
+   *
+   * @param players the players of the game
+   * @param rounds  the number of rounds to store
+   * @return the map holding the rounds
+   */
+  private static Object storeMapRounds(List<Player> players, int rounds) {
+    Map<Integer, MapRound> storedRounds = new HashMap<>();
+    Map<Player, Integer> money = new HashMap<>();
+    for (int roundNumber = 1; roundNumber <= rounds; roundNumber++) {
+      MapRound round = new MapRound(roundNumber);
+      int totalShrimp = 0;
+      for (int seat = 0; seat < SEATS; seat++) {
+        int caught = shrimpCaught(seat, roundNumber);
+        round.shrimpCaught.put(players.get(seat), caught);
+        totalShrimp += caught;
+      }
+      round.totalShrimpCaught = totalShrimp;
+      round.shrimpPrice = 45 - (int) (0.2 * totalShrimp);
+      for (Player player : players) {
+        int roundProfit = player.calculateProfitValue(round.shrimpPrice)
+            * round.shrimpCaught.get(player);
+        round.roundProfit.put(player, roundProfit);
+        int total = money.getOrDefault(player, 0) + roundProfit;
+        money.put(player, total);
+        round.totalProfit.put(player, total);
+      }
+      storedRounds.put(roundNumber, round);
+    }
+    return storedRounds;
+  }
+
+  /**
+   * Gets the catch of a seat in a round, varied so profits are not all cached boxes.
+   *
+   * @param seat        the seat
+   * @param roundNumber the round
+   * @return the shrimp caught
+   */
+  private static int shrimpCaught(int seat, int roundNumber) {
+    return 10 + seat * 15 + roundNumber % 7;
+  }
+
+  /**
+   * Measures the heap retained by what a builder returns.
+   *
+   * @param builder the builder of the measured structure
+   * @return the retained bytes
+   */
+  private static double measure(Builder builder) {
+    long before = usedHeapAfterGc();
+    Object retained = builder.build();
+    long after = usedHeapAfterGc();
+    Reference.reachabilityFence(retained);
+    return after - before;
+  }
+
+  /**
+   * Collects garbage until the heap in use stops shrinking.
+   *
+   * @return the bytes of heap in use
+   */
+  private static long usedHeapAfterGc() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int attempt = 0; attempt < 10; attempt++) {
+      System.gc();
+      long current = runtime.totalMemory() - runtime.freeMemory();
+      if (current >= used) {
+        return current;
+      }
+      used = current;
+    }
+    return used;
+  }
+
+  /**
+   * Builds a structure whose retained size is measured.
+   */
+  private interface Builder {
+    /**
+     * Builds the structure.
+     *
+     * @return the root of the structure
+     */
+    Object build();
+  }
+
+  /**
+   * A round stored with a map from player to result, as before the per-seat arrays.
+   */
+  private static final class MapRound {
+    private final int number;
+    private int shrimpPrice;
+    private int totalShrimpCaught;
+    private final Map<Player, Integer> shrimpCaught = new HashMap<>();
+    private final Map<Player, Integer> roundProfit = new HashMap<>();
+    private final Map<Player, Integer> totalProfit = new HashMap<>();
+
+    /**
+     * Creates a new instance of {@code MapRound}.
+     *
+     * @param number the number of the round
+     */
+    private MapRound(int number) {
+      this.number = number;
+    }
+  }
+}
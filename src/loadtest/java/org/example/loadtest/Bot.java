@@ -0,0 +1,214 @@
+package org.example.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The Bot class is a simulated player speaking the real client protocol over a socket.
+ * <p>
+ * Bots play in groups of three. The first bot of a group creates the group's lobby, and all three
+ * join it once it exists. Every round each bot catches shrimp and, now and then, sends a chat
+ * message, then waits for the round results. A chat message turned down by the server's chat
+ * rate limit is counted instead of timed. Replies the bot is not waiting for, such as lobby
+ * updates and chat broadcasts, are skipped.
+ */
+public class Bot implements Runnable {
+  private static final String[] CHAT_WORDS = {"catch", "less", "more", "ten", "twenty", "ok",
+                                              "deal", "please", "shrimp", "price"};
+  private final LoadGenerator generator;
+  private final Group group;
+  private final int seat;
+  private final String localAddress;
+  private Socket socket;
+  private BufferedReader reader;
+  private OutputStream output;
+
+  /**
+   * The state shared by the three bots playing together.
+   */
+  static final class Group {
+    private final String lobbyName;
+    private final CountDownLatch lobbyCreated;
+    private final AtomicLongArray lastCatchNanos;
+
+    /**
+     * Creates a new instance of {@code Group}.
+     *
+     * @param lobbyName the name of the lobby the group plays in
+     * @param rounds    the number of rounds the group plays
+     */
+    Group(String lobbyName, int rounds) {
+      this.lobbyName = lobbyName;
+      this.lobbyCreated = new CountDownLatch(1);
+      this.lastCatchNanos = new AtomicLongArray(rounds + 1);
+    }
+  }
+
+  /**
+   * Creates a new instance of {@code Bot}.
+   *
+   * @param generator    the load generator the bot reports to
+   * @param group        the group the bot plays in
+   * @param seat         the seat of the bot in its group, {@code 0} creates the lobby
+   * @param localAddress the loopback address the bot connects from, or {@code null} for any
+   */
+  Bot(LoadGenerator generator, Group group, int seat, String localAddress) {
+    this.generator = generator;
+    this.group = group;
+    this.seat = seat;
+    this.localAddress = localAddress;
+  }
+
+  /**
+   * Plays a whole game, reporting any failure to the load generator.
+   */
+  @Override
+  public void run() {
+    try (Socket socket = new Socket()) {
+      this.socket = socket;
+      this.play();
+      this.generator.botFinished();
+    }
+    catch (IOException | InterruptedException | RuntimeException exception) {
+      this.generator.botFailed(this.group.lobbyName + "/" + this.seat, exception);
+    }
+    finally {
+      this.group.lobbyCreated.countDown();
+    }
+  }
+
+  /**
+   * Connects, joins the group's lobby and plays every round.
+   *
+   * @throws IOException          if the connection fails or times out
+   * @throws InterruptedException if the bot is interrupted while waiting for its lobby
+   */
+  private void play() throws IOException, InterruptedException {
+    if (this.localAddress != null) {
+      this.socket.bind(new InetSocketAddress(this.localAddress, 0));
+    }
+    long connectStart = System.nanoTime();
+    this.socket.connect(this.generator.getServerAddress(), LoadGenerator.TIMEOUT_MILLIS);
+    this.socket.setSoTimeout(LoadGenerator.TIMEOUT_MILLIS);
+    this.socket.setTcpNoDelay(true);
+    this.reader = new BufferedReader(
+        new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+    this.output = this.socket.getOutputStream();
+    this.send("REQUEST_USERNAME " + LoadGenerator.PROTOCOL_VERSION);
+    this.waitFor("USERNAME");
+    this.generator.getLoginLatency().record(System.nanoTime() - connectStart);
+
+    if (this.seat == 0) {
+      this.send("CREATE_LOBBY " + this.group.lobbyName + " 3 " + this.generator.getRounds()
+                + " 60 0 30 0 100");
+      this.waitFor("CREATE_LOBBY_SUCCESS");
+      this.group.lobbyCreated.countDown();
+    }
+    else {
+      this.group.lobbyCreated.await();
+    }
+    long joinStart = System.nanoTime();
+    this.send("JOIN_LOBBY " + this.group.lobbyName);
+    this.waitFor("LOBBY_JOINED");
+    this.generator.getJoinLatency().record(System.nanoTime() - joinStart);
+    this.waitFor("UPDATE GAME_STARTED");
+
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    for (int round = 1; round <= this.generator.getRounds(); round++) {
+      if (random.nextDouble() < this.generator.getChatProbability()) {
+        long chatStart = System.nanoTime();
+        this.send("CHAT_MESSAGE " + CHAT_WORDS[random.nextInt(CHAT_WORDS.length)] + "⁞"
+                  + CHAT_WORDS[random.nextInt(CHAT_WORDS.length)]);
+        String reply = this.waitFor("MESSAGE_RECEIVED", "MESSAGE_RATE_LIMITED");
+        if (reply.startsWith("MESSAGE_RECEIVED")) {
+          this.generator.getChatLatency().record(System.nanoTime() - chatStart);
+        }
+        else {
+          this.generator.chatRateLimited();
+        }
+      }
+      long catchStart = System.nanoTime();
+      this.group.lastCatchNanos.accumulateAndGet(round, catchStart, Math::max);
+      this.send("CATCH_SHRIMP " + random.nextInt(0, 101));
+      this.waitForCatchResults(catchStart, round);
+    }
+  }
+
+  /**
+   * Waits for the acknowledgement of a catch and for the results of the round. The last bot to
+   * catch in a round receives the results before its acknowledgement, so both orders are
+   * accepted.
+   *
+   * @param catchStart the time the catch was sent
+   * @param round      the number of the round
+   * @throws IOException if the connection is closed or times out first
+   */
+  private void waitForCatchResults(long catchStart, int round) throws IOException {
+    boolean acknowledged = false;
+    boolean roundFinished = false;
+    while (!acknowledged || !roundFinished) {
+      String line = this.reader.readLine();
+      if (line == null) {
+        throw new IOException("Connection closed while waiting for round " + round);
+      }
+      if (!acknowledged && line.startsWith("CAUGHT_SUCCESSFULLY")) {
+        acknowledged = true;
+        this.generator.getCatchLatency().record(System.nanoTime() - catchStart);
+      }
+      else if (!roundFinished && line.startsWith("UPDATE ROUND_FINISHED")) {
+        roundFinished = true;
+        this.generator.getRoundFinishedLatency()
+            .record(System.nanoTime() - this.group.lastCatchNanos.get(round));
+      }
+    }
+  }
+
+  /**
+   * Sends a command to the server.
+   *
+   * @param command the command, without the line terminator
+   * @throws IOException if the command could not be written
+   */
+  private void send(String command) throws IOException {
+    this.output.write((command + "\r\n").getBytes(StandardCharsets.UTF_8));
+    this.output.flush();
+    this.generator.commandSent();
+  }
+
+  /**
+   * Reads lines until one starts with a prefix.
+   *
+   * @param prefix the start of the line to wait for
+   * @throws IOException if the connection is closed or times out first
+   */
+  private void waitFor(String prefix) throws IOException {
+    this.waitFor(prefix, prefix);
+  }
+
+  /**
+   * Reads lines until one starts with either of two prefixes.
+   *
+   * @param prefix      the start of the line to wait for
+   * @param otherPrefix the start of the other line to wait for
+   * @return the line that was waited for
+   * @throws IOException if the connection is closed or times out first
+   */
+  private String waitFor(String prefix, String otherPrefix) throws IOException {
+    String line = this.reader.readLine();
+    while (line != null && !line.startsWith(prefix) && !line.startsWith(otherPrefix)) {
+      line = this.reader.readLine();
+    }
+    if (line == null) {
+      throw new IOException("Connection closed while waiting for " + prefix);
+    }
+    return line;
+  }
+}
@@ -0,0 +1,73 @@
+package org.example.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * The LatencyRecorder class collects every latency sample of one kind, so exact percentiles can
+ * be reported once the load test has finished. It is safe to record from many bots at once.
+ */
+public class LatencyRecorder {
+  private final String name;
+  private long[] samples;
+  private int size;
+
+  /**
+   * Creates a new, empty instance of {@code LatencyRecorder}.
+   *
+   * @param name the name the samples are reported under
+   */
+  public LatencyRecorder(String name) {
+    this.name = name;
+    this.samples = new long[1024];
+    this.size = 0;
+  }
+
+  /**
+   * Records a latency sample.
+   *
+   * @param nanos the latency in nanoseconds
+   */
+  public synchronized void record(long nanos) {
+    if (this.size == this.samples.length) {
+      this.samples = Arrays.copyOf(this.samples, this.size * 2);
+    }
+    this.samples[this.size++] = nanos;
+  }
+
+  /**
+   * Gets the number of recorded samples.
+   *
+   * @return the number of samples
+   */
+  public synchronized int size() {
+    return this.size;
+  }
+
+  /**
+   * Formats the number of samples and their p50, p99, p99.9 and maximum, in milliseconds.
+   *
+   * @return the formatted summary
+   */
+  public synchronized String summarize() {
+    if (this.size == 0) {
+      return String.format("%-16s %9d", this.name, 0);
+    }
+    long[] sorted = Arrays.copyOf(this.samples, this.size);
+    Arrays.sort(sorted);
+    return String.format("%-16s %9d %9.3f %9.3f %9.3f %9.3f", this.name, this.size,
+                         percentile(sorted, 0.50), percentile(sorted, 0.99),
+                         percentile(sorted, 0.999), sorted[sorted.length - 1] / 1e6);
+  }
+
+  /**
+   * Gets a percentile of sorted samples, using the nearest-rank method.
+   *
+   * @param sorted   the samples in ascending order
+   * @param quantile the quantile, between 0 and 1
+   * @return the percentile in milliseconds
+   */
+  private static double percentile(long[] sorted, double quantile) {
+    int rank = (int) Math.ceil(quantile * sorted.length);
+    return sorted[Math.max(0, rank - 1)] / 1e6;
+  }
+}
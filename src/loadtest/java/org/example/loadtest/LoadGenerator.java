@@ -0,0 +1,283 @@
+package org.example.loadtest;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import org.example.ConnectionMode;
+import org.example.Server;
+import org.example.ServerSettings;
+import org.example.log.Level;
+
+/**
+ * The LoadGenerator class plays many simulated games against a server over loopback and reports
+ * throughput and latencies.
+ * <p>
+ * Options are passed as {@code --name=value} arguments:
+ * <ul>
+ *   <li>{@code --clients}: the number of bots, rounded up to a multiple of 3 (default 300)</li>
+ *   <li>{@code --rounds}: the number of rounds per game (default 10)</li>
+ *   <li>{@code --chat-probability}: the chance a bot chats in a round (default 0.2)</li>
+ *   <li>{@code --host} and {@code --port}: the server to target (default 127.0.0.1:8080)</li>
+ *   <li>{@code --server}: {@code blocking}, {@code virtual} or {@code nio} to start a server in
+ *   this process first, or {@code none} to target a running server (default none)</li>
+ *   <li>{@code --distinct-ips}: {@code true} to spread the bots over 127.x.y.z addresses, one
+ *   each, so runs with more bots than one address has ephemeral ports can still connect
+ *   (default false)</li>
+ * </ul>
+ * Bots run on virtual threads, so the generator itself does not limit the number of clients.
+ */
+public class LoadGenerator {
+  static final int TIMEOUT_MILLIS = 30_000;
+  static final String PROTOCOL_VERSION = Server.VERSION;
+  private int clients;
+  private int rounds;
+  private double chatProbability;
+  private String host;
+  private int port;
+  private String server;
+  private boolean distinctIps;
+  private final LatencyRecorder loginLatency;
+  private final LatencyRecorder joinLatency;
+  private final LatencyRecorder catchLatency;
+  private final LatencyRecorder chatLatency;
+  private final LatencyRecorder roundFinishedLatency;
+  private final LongAdder commandsSent;
+  private final LongAdder chatsRateLimited;
+  private final AtomicInteger finishedBots;
+  private final AtomicInteger failedBots;
+
+  /**
+   * Creates a new instance of {@code LoadGenerator} with the default options.
+   */
+  public LoadGenerator() {
+    this.clients = 300;
+    this.rounds = 10;
+    this.chatProbability = 0.2;
+    this.host = "127.0.0.1";
+    this.port = 8080;
+    this.server = "none";
+    this.distinctIps = false;
+    this.loginLatency = new LatencyRecorder("login");
+    this.joinLatency = new LatencyRecorder("join lobby");
+    this.catchLatency = new LatencyRecorder("catch ack");
+    this.chatLatency = new LatencyRecorder("chat ack");
+    this.roundFinishedLatency = new LatencyRecorder("round finished");
+    this.commandsSent = new LongAdder();
+    this.chatsRateLimited = new LongAdder();
+    this.finishedBots = new AtomicInteger();
+    this.failedBots = new AtomicInteger();
+  }
+
+  /**
+   * Runs the load generator.
+   *
+   * @param args the {@code --name=value} options
+   * @throws Exception if the in-process server could not be started or the run was interrupted
+   */
+  public static void main(String[] args) throws Exception {
+    LoadGenerator generator = new LoadGenerator();
+    for (String argument : args) {
+      int separator = argument.indexOf('=');
+      if (!argument.startsWith("--") || separator == -1) {
+        throw new IllegalArgumentException("Expected --name=value but got " + argument);
+      }
+      generator.apply(argument.substring(2, separator), argument.substring(separator + 1));
+    }
+    generator.run();
+  }
+
+  /**
+   * Applies a single option.
+   *
+   * @param name  the name of the option
+   * @param value the value of the option
+   * @throws IllegalArgumentException if the option is unknown
+   */
+  private void apply(String name, String value) {
+    switch (name) {
+      case "clients":
+        this.clients = (Integer.parseInt(value) + 2) / 3 * 3;
+        break;
+
+      case "rounds":
+        this.rounds = Integer.parseInt(value);
+        break;
+
+      case "chat-probability":
+        this.chatProbability = Double.parseDouble(value);
+        break;
+
+      case "host":
+        this.host = value;
+        break;
+
+      case "port":
+        this.port = Integer.parseInt(value);
+        break;
+
+      case "server":
+        this.server = value;
+        break;
+
+      case "distinct-ips":
+        this.distinctIps = Boolean.parseBoolean(value);
+        break;
+
+      default:
+        throw new IllegalArgumentException("Unknown option --" + name);
+    }
+  }
+
+  /**
+   * Starts the server if requested, runs every bot to completion and prints the report.
+   *
+   * @throws Exception if the in-process server could not be started or the run was interrupted
+   */
+  private void run() throws Exception {
+    if (!"none".equals(this.server)) {
+      this.startServer(ConnectionMode.valueOf(this.server.toUpperCase()));
+    }
+    System.out.println("Running " + this.clients + " bots, " + this.rounds + " rounds each, against "
+                       + this.host + ":" + this.port);
+    String runId = Long.toString(System.currentTimeMillis() % 100_000, 36);
+    long start = System.nanoTime();
+    try (ExecutorService bots = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Bot.Group> groups = new ArrayList<>();
+      for (int bot = 0; bot < this.clients; bot++) {
+        if (bot % 3 == 0) {
+          groups.add(new Bot.Group("load-" + runId + "-" + bot / 3, this.rounds));
+        }
+        String localAddress = this.distinctIps
+            ? "127." + (1 + bot / 62_500) + "." + (bot / 250 % 250) + "." + (1 + bot % 250) : null;
+        bots.execute(new Bot(this, groups.get(bot / 3), bot % 3, localAddress));
+      }
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    this.report(elapsedNanos);
+    System.exit(0);
+  }
+
+  /**
+   * Starts a server in this process, with its data in a temporary directory, and waits until it
+   * accepts connections.
+   *
+   * @param mode the connection mode of the server
+   * @throws IOException          if the data directory could not be created
+   * @throws InterruptedException if interrupted while waiting for the server
+   */
+  private void startServer(ConnectionMode mode) throws IOException, InterruptedException {
+    ServerSettings settings = new ServerSettings();
+    settings.setConnectionMode(mode);
+    settings.setDataDirectory(Files.createTempDirectory("shrimp-load-"));
+    settings.setLogLevel(Level.WARN);
+    settings.setMetricsPort(0);
+    Thread.ofPlatform().name("load-server").daemon(true).start(new Server(settings)::start);
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while (true) {
+      try (Socket probe = new Socket()) {
+        probe.connect(this.getServerAddress(), 1000);
+        return;
+      }
+      catch (IOException exception) {
+        if (System.currentTimeMillis() > deadline) {
+          throw exception;
+        }
+        Thread.sleep(50);
+      }
+    }
+  }
+
+  /**
+   * Prints the throughput and latency report.
+   *
+   * @param elapsedNanos the time the bots took
+   */
+  private void report(long elapsedNanos) {
+    double seconds = elapsedNanos / 1e9;
+    long commands = this.commandsSent.sum();
+    System.out.printf("Bots finished: %d, failed: %d, time: %.2f s%n", this.finishedBots.get(),
+                      this.failedBots.get(), seconds);
+    System.out.printf("Commands: %d (%.0f/s)%n", commands, commands / seconds);
+    System.out.printf("Chat messages rate limited: %d%n", this.chatsRateLimited.sum());
+    System.out.printf("%-16s %9s %9s %9s %9s %9s%n", "latency (ms)", "count", "p50", "p99",
+                      "p99.9", "max");
+    for (LatencyRecorder recorder : List.of(this.loginLatency, this.joinLatency,
+                                            this.catchLatency, this.chatLatency,
+                                            this.roundFinishedLatency)) {
+      System.out.println(recorder.summarize());
+    }
+  }
+
+  /**
+   * Records that a bot sent a command.
+   */
+  void commandSent() {
+    this.commandsSent.increment();
+  }
+
+  /**
+   * Records that a chat message of a bot was turned down by the chat rate limit.
+   */
+  void chatRateLimited() {
+    this.chatsRateLimited.increment();
+  }
+
+  /**
+   * Records that a bot played its whole game.
+   */
+  void botFinished() {
+    this.finishedBots.incrementAndGet();
+  }
+
+  /**
+   * Records that a bot failed, printing the first few failures.
+   *
+   * @param bot       the lobby and seat of the bot
+   * @param exception the reason the bot failed
+   */
+  void botFailed(String bot, Exception exception) {
+    if (this.failedBots.incrementAndGet() <= 10) {
+      System.err.println("Bot " + bot + " failed: " + exception);
+    }
+  }
+
+  InetSocketAddress getServerAddress() {
+    return new InetSocketAddress(this.host, this.port);
+  }
+
+  int getRounds() {
+    return this.rounds;
+  }
+
+  double getChatProbability() {
+    return this.chatProbability;
+  }
+
+  LatencyRecorder getLoginLatency() {
+    return this.loginLatency;
+  }
+
+  LatencyRecorder getJoinLatency() {
+    return this.joinLatency;
+  }
+
+  LatencyRecorder getCatchLatency() {
+    return this.catchLatency;
+  }
+
+  LatencyRecorder getChatLatency() {
+    return this.chatLatency;
+  }
+
+  LatencyRecorder getRoundFinishedLatency() {
+    return this.roundFinishedLatency;
+  }
+}
@@ -0,0 +1,63 @@
+package org.example;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * The ChatClock class gives the {@code HH:mm:ss} time chat messages are stamped with.
+ * <p>
+ * The time is formatted at most once per second and shared by every game, so stamping a message
+ * usually costs one read of the clock and no allocation. It is safe to use from many threads.
+ */
+public class ChatClock {
+  private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+  private final Clock clock;
+  private volatile Stamp lastStamp;
+
+  /**
+   * A formatted time together with the second it was formatted for.
+   *
+   * @param epochSecond the second since the epoch
+   * @param time        the formatted time of that second
+   */
+  private record Stamp(long epochSecond, String time) {
+  }
+
+  /**
+   * Creates a new instance of {@code ChatClock} reading the system clock in a time zone.
+   *
+   * @param zone the time zone the chat times are shown in
+   */
+  public ChatClock(ZoneId zone) {
+    this(Clock.system(zone));
+  }
+
+  /**
+   * Creates a new instance of {@code ChatClock} reading a clock.
+   *
+   * @param clock the clock to read, in the time zone the chat times are shown in
+   */
+  public ChatClock(Clock clock) {
+    this.clock = clock;
+    this.lastStamp = new Stamp(Long.MIN_VALUE, "");
+  }
+
+  /**
+   * Gets the current time.
+   *
+   * @return the current time formatted as {@code HH:mm:ss}
+   */
+  public String now() {
+    long epochSecond = Math.floorDiv(this.clock.millis(), 1000L);
+    Stamp stamp = this.lastStamp;
+    if (stamp.epochSecond() != epochSecond) {
+      String time =
+          TIME_FORMAT.format(Instant.ofEpochSecond(epochSecond).atZone(this.clock.getZone()));
+      stamp = new Stamp(epochSecond, time);
+      this.lastStamp = stamp;
+    }
+    return stamp.time();
+  }
+}
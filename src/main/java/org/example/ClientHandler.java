@@ -1,17 +1,26 @@
 package org.example;
 
 import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.example.cluster.Cluster;
+import org.example.cluster.ClusterMember;
+import org.example.cluster.ClusterRelay;
+import org.example.log.Log;
+import org.example.logic.ChatRateLimiter;
+import org.example.logic.HashedWheelTimer;
 import org.example.logic.Lobby;
 import org.example.logic.Player;
+import org.example.network.OutboundQueue;
 
 /**
  * The ClientHandler class represents a handler for communication between the server and a client.
@@ -19,13 +28,27 @@ import org.example.logic.Player;
  * It is responsible for sending and receiving data, processing requests, and handling errors.
  */
 public class ClientHandler implements Runnable {
+  private static final long CLOSE_FLUSH_MILLIS = 1000;
   private final Socket clientSocket;
   private final Server server;
-  private BufferedWriter bufferedWriter;
+  private final String hostAddress;
+  private final OutboundQueue outboundQueue;
+  private OutputStream outputStream;
   private BufferedReader bufferedReader;
+  private byte[] writeBatch;
   private Player player;
   private Lobby lobbyJoined;
-  private static String ipAddress = "";
+  private volatile boolean lobbyDeltasEnabled;
+  private final CommandTokenizer tokenizer;
+  private ChatRateLimiter chatRateLimiter;
+  private volatile long lastReadNanos;
+  private volatile HashedWheelTimer.Timeout idleCheck;
+  private volatile boolean disconnected;
+  private volatile boolean lobbyUpdateDropped;
+  private final AtomicBoolean overOutboundBudget;
+  private volatile boolean clusterConnection;
+  private ClusterRelay clusterRelay;
+  private volatile Session session;
 
   /**
    * Constructor for the ClientHandler class.
@@ -36,30 +59,375 @@ public class ClientHandler implements Runnable {
   public ClientHandler(Socket socket, Server server) {
     this.clientSocket = socket;
     this.server = server;
+    this.hostAddress = socket.getInetAddress().getHostAddress();
+    this.tokenizer = new CommandTokenizer();
+    this.chatRateLimiter = new ChatRateLimiter(server.getSettings().getChatMessagesPerMinute(),
+                                               server.getSettings().getChatBurst());
+    this.outboundQueue = new OutboundQueue();
+    this.overOutboundBudget = new AtomicBoolean(false);
+    this.lastReadNanos = System.nanoTime();
+    this.writeBatch = new byte[8192];
     try {
-      this.bufferedWriter = new BufferedWriter(
-          new OutputStreamWriter(this.clientSocket.getOutputStream(), StandardCharsets.UTF_8));
+      this.outputStream = this.clientSocket.getOutputStream();
       this.bufferedReader = new BufferedReader(
           new InputStreamReader(this.clientSocket.getInputStream(), StandardCharsets.UTF_8));
     }
     catch (IOException exception) {
-      System.err.println("Failed to open stream: " + exception);
+      Log.warn("Failed to open stream", "exception", exception);
     }
   }
 
   /**
-   * Sends a message to the client through the established connection.
+   * Constructor for a ClientHandler that does not own a blocking socket.
+   * <p>
+   * Subclasses using this constructor are responsible for delivering received messages to
+   * {@link #handleMessage(String)} and must override {@link #scheduleDrain()}.
+   *
+   * @param server      the main server application
+   * @param hostAddress the IP address of the client
+   */
+  protected ClientHandler(Server server, String hostAddress) {
+    this.clientSocket = null;
+    this.server = server;
+    this.hostAddress = hostAddress;
+    this.tokenizer = new CommandTokenizer();
+    this.chatRateLimiter = new ChatRateLimiter(server.getSettings().getChatMessagesPerMinute(),
+                                               server.getSettings().getChatBurst());
+    this.outboundQueue = new OutboundQueue();
+    this.overOutboundBudget = new AtomicBoolean(false);
+    this.lastReadNanos = System.nanoTime();
+  }
+
+  /**
+   * Queues a message to be sent to the client through the established connection.
+   * <p>
+   * The message is written by a separate writer, so the calling thread never blocks on the
+   * socket. All messages queued since the last write are written together.
    *
    * @param message the message to be sent
-   * @throws RuntimeException if there is a failure to send the message to the client
    */
-  public synchronized void send(String message) {
+  public void send(String message) {
+    this.enqueue(ByteBuffer.wrap((message + "\r\n").getBytes(StandardCharsets.UTF_8)));
+  }
+
+  /**
+   * Queues an already encoded message to be sent to the client.
+   * <p>
+   * The buffer may be shared with other recipients; it is never modified, and each recipient
+   * reads it through its own view.
+   *
+   * @param encodedMessage the encoded message including the line terminator, as returned by
+   *                       {@link Server#encodeMessage(String)}
+   */
+  public void send(ByteBuffer encodedMessage) {
+    this.enqueue(encodedMessage.duplicate());
+  }
+
+  /**
+   * Sends a game event to the client through its session, which numbers and keeps the event so
+   * a client that reconnects can be sent the events it missed (see {@link Session}). The event
+   * goes to the connection attached to the session, which is not necessarily this one.
+   *
+   * @param event the event to be sent
+   */
+  public void sendEvent(String event) {
+    this.sendEvent(Server.encodeMessage(event));
+  }
+
+  /**
+   * Sends an encoded game event to the client through its session. Clients without a session,
+   * such as relayed cluster clients, are sent the event directly.
+   *
+   * @param encodedEvent the encoded event including the line terminator, which may be shared
+   *                     with other recipients
+   */
+  public void sendEvent(ByteBuffer encodedEvent) {
+    Session currentSession = this.session;
+    if (currentSession != null) {
+      currentSession.sendEvent(encodedEvent);
+    }
+    else {
+      this.send(encodedEvent);
+    }
+  }
+
+  /**
+   * Sets the session the connection is attached to.
+   *
+   * @param session the session of the client
+   */
+  void setSession(Session session) {
+    this.session = session;
+  }
+
+  /**
+   * Queues an encoded lobby list update to be sent to the client. Lobby updates are superseded
+   * by the next one, so if the client is over its outbound budget the update is dropped
+   * instead, and the client is marked as needing the full list (see
+   * {@link #isLobbyUpdateDropped()}).
+   *
+   * @param encodedUpdate the encoded {@code UPDATE LOBBY} or {@code UPDATE LOBBY_DELTA} message,
+   *                      which may be shared with other recipients
+   * @param fullList      {@code true} if the update is the full lobby list
+   */
+  public void sendLobbyUpdate(ByteBuffer encodedUpdate, boolean fullList) {
+    long budget = this.server.getSettings().getOutboundBudgetBytes();
+    if (budget > 0
+        && this.outboundQueue.getQueuedBytes() + encodedUpdate.remaining() > budget) {
+      this.lobbyUpdateDropped = true;
+      this.server.getMetrics().lobbyUpdateDropped();
+      Log.debug("Dropped lobby update for a slow client", "ip", this.hostAddress, "queued_bytes",
+                this.outboundQueue.getQueuedBytes());
+      this.startSlowConsumerGrace();
+      return;
+    }
+    if (fullList) {
+      this.lobbyUpdateDropped = false;
+    }
+    this.enqueue(encodedUpdate.duplicate());
+  }
+
+  /**
+   * Checks if a lobby update was dropped for the client since it was last sent the full lobby
+   * list, in which case its next update has to be the full list.
+   *
+   * @return {@code true} if a lobby update was dropped, or {@code false} if not
+   */
+  public boolean isLobbyUpdateDropped() {
+    return this.lobbyUpdateDropped;
+  }
+
+  /**
+   * Adds an encoded message to the outbound queue and schedules a writer if none is scheduled.
+   * Messages for a disconnected client are discarded. If the message takes the queue over the
+   * outbound budget, the client is given a grace period to catch up before it is disconnected.
+   *
+   * @param encodedMessage the encoded message, owned by this connection
+   */
+  private void enqueue(ByteBuffer encodedMessage) {
+    if (this.disconnected) {
+      return;
+    }
+    long budget = this.server.getSettings().getOutboundBudgetBytes();
+    if (budget > 0 && this.outboundQueue.getQueuedBytes() + encodedMessage.remaining() > budget) {
+      this.startSlowConsumerGrace();
+    }
+    if (this.outboundQueue.add(encodedMessage)) {
+      this.scheduleDrain();
+    }
+  }
+
+  /**
+   * Gives a client that has gone over its outbound budget a grace period to catch up, unless
+   * it already has one.
+   */
+  private void startSlowConsumerGrace() {
+    if (this.overOutboundBudget.compareAndSet(false, true)) {
+      this.server.getMetrics().outboundOverBudget();
+      Log.warn("Client is over its outbound budget", "player", this.getPlayerName(), "ip",
+               this.hostAddress, "queued_bytes", this.outboundQueue.getQueuedBytes());
+      this.server.getTimer().schedule(this::checkSlowConsumer,
+                                      this.server.getSettings().getSlowConsumerGraceMillis(),
+                                      TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Checks a client that went over its outbound budget once its grace period has passed. A
+   * client still over the budget is disconnected; otherwise it is sent the full lobby list if it
+   * missed a lobby update, and is given a new grace period the next time it goes over. Runs on
+   * the server timer thread.
+   */
+  private void checkSlowConsumer() {
+    if (this.disconnected) {
+      return;
+    }
+    long queuedBytes = this.outboundQueue.getQueuedBytes();
+    if (queuedBytes > this.server.getSettings().getOutboundBudgetBytes()) {
+      this.server.getMetrics().slowConsumerDisconnected();
+      Log.warn("Disconnecting slow client", "player", this.getPlayerName(), "ip", this.hostAddress,
+               "queued_bytes", queuedBytes);
+      this.closeConnection();
+    }
+    else {
+      Log.debug("Client caught up with its outbound queue", "ip", this.hostAddress,
+                "queued_bytes", queuedBytes);
+      this.overOutboundBudget.set(false);
+      if (this.lobbyUpdateDropped) {
+        this.server.getLobbyUpdater().resendFullUpdate(this);
+      }
+    }
+  }
+
+  /**
+   * Gets the cluster node that owns a lobby, if it is not this node.
+   *
+   * @param lobbyName the name of the lobby
+   * @return the owning node, or {@code null} if the lobby is owned by this node
+   */
+  private ClusterMember getRemoteOwner(String lobbyName) {
+    Cluster cluster = this.server.getCluster();
+    return cluster.isLocal(lobbyName) ? null : cluster.getOwner(lobbyName);
+  }
+
+  /**
+   * Gets the relay that forwards the client's commands to other cluster nodes, creating it the
+   * first time it is needed.
+   *
+   * @return the cluster relay of the client
+   */
+  private ClusterRelay getClusterRelay() {
+    if (this.clusterRelay == null) {
+      this.clusterRelay = new ClusterRelay(this.server.getCluster(), this);
+    }
+    return this.clusterRelay;
+  }
+
+  /**
+   * Gets the username of the client for logging.
+   *
+   * @return the username, or {@code null} if the client has not been given one
+   */
+  private String getPlayerName() {
+    Player currentPlayer = this.player;
+    return currentPlayer == null ? null : currentPlayer.getName();
+  }
+
+  /**
+   * Gets the queue of messages waiting to be written to the client.
+   *
+   * @return the outbound queue of the client
+   */
+  protected OutboundQueue getOutboundQueue() {
+    return this.outboundQueue;
+  }
+
+  /**
+   * Schedules a writer to drain the outbound queue. Called at most once until the writer
+   * reports that it is done through {@link OutboundQueue#finishDrain()}.
+   */
+  protected void scheduleDrain() {
+    this.server.getOutboundWriter().execute(this::drainOutboundQueue);
+  }
+
+  /**
+   * Writes all queued messages to the socket, combining them into a single write. Messages stay
+   * in the queue, and count towards the outbound budget, until the write has completed. If the
+   * write fails the socket is closed, which ends the receiving loop of the connection.
+   */
+  private void drainOutboundQueue() {
+    do {
+      int length = 0;
+      int count = 0;
+      Iterator<ByteBuffer> messages = this.outboundQueue.iterator();
+      while (messages.hasNext()) {
+        ByteBuffer message = messages.next();
+        int messageLength = message.remaining();
+        if (length + messageLength > this.writeBatch.length) {
+          byte[] grown = new byte[Math.max(this.writeBatch.length * 2, length + messageLength)];
+          System.arraycopy(this.writeBatch, 0, grown, 0, length);
+          this.writeBatch = grown;
+        }
+        message.get(message.position(), this.writeBatch, length, messageLength);
+        length += messageLength;
+        count++;
+      }
+      try {
+        this.outputStream.write(this.writeBatch, 0, length);
+        this.outputStream.flush();
+        for (int i = 0; i < count; i++) {
+          this.outboundQueue.poll();
+        }
+      }
+      catch (IOException exception) {
+        this.outboundQueue.clear();
+        this.closeSocket();
+      }
+    } while (this.outboundQueue.finishDrain());
+  }
+
+  /**
+   * Closes the connection from the server side. The disconnect cleanup is run once the
+   * connection has noticed that it is closed.
+   */
+  protected void closeConnection() {
+    this.closeSocket();
+  }
+
+  /**
+   * Starts checking the connection for silence, if a heartbeat interval or an idle timeout is
+   * configured. Called once the connection has been accepted.
+   */
+  public void startIdleChecks() {
+    ServerSettings settings = this.server.getSettings();
+    long heartbeatMillis = settings.getHeartbeatIntervalMillis();
+    long idleTimeoutMillis = settings.getIdleTimeoutMillis();
+    if (heartbeatMillis > 0 || idleTimeoutMillis > 0) {
+      long firstCheckMillis = heartbeatMillis > 0 && idleTimeoutMillis > 0
+          ? Math.min(heartbeatMillis, idleTimeoutMillis)
+          : Math.max(heartbeatMillis, idleTimeoutMillis);
+      this.scheduleIdleCheck(firstCheckMillis);
+    }
+  }
+
+  /**
+   * Schedules the next idle check on the server timer.
+   *
+   * @param delayMillis the time (in milliseconds) until the check
+   */
+  private void scheduleIdleCheck(long delayMillis) {
+    if (!this.disconnected) {
+      this.idleCheck = this.server.getTimer().schedule(this::checkIdle, delayMillis,
+                                                       TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Checks how long the client has been silent. A client silent for longer than the idle
+   * timeout is closed and counted as reaped; a client silent for longer than the heartbeat
+   * interval is sent a {@code PING}. Otherwise the next check is scheduled for when one of the
+   * two could be due. Connections from other cluster nodes are not checked, since a lobby
+   * subscription or a relayed player waiting in a lobby has nothing to send for as long as the
+   * lobbies stay the same; a relayed player is closed with the client it belongs to instead.
+   * Runs on the server timer thread.
+   */
+  private void checkIdle() {
+    if (this.disconnected || this.clusterConnection) {
+      return;
+    }
+    ServerSettings settings = this.server.getSettings();
+    long heartbeatMillis = settings.getHeartbeatIntervalMillis();
+    long idleTimeoutMillis = settings.getIdleTimeoutMillis();
+    long idleMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.lastReadNanos);
+    if (idleTimeoutMillis > 0 && idleMillis >= idleTimeoutMillis) {
+      this.server.getMetrics().connectionReaped();
+      Log.info("Closing idle client", "player", this.getPlayerName(), "ip", this.hostAddress,
+               "idle_ms", idleMillis);
+      this.closeConnection();
+      return;
+    }
+    long nextCheckMillis = idleTimeoutMillis > 0 ? idleTimeoutMillis - idleMillis : Long.MAX_VALUE;
+    if (heartbeatMillis > 0) {
+      if (idleMillis >= heartbeatMillis) {
+        this.send("PING");
+        nextCheckMillis = Math.min(nextCheckMillis, heartbeatMillis);
+      }
+      else {
+        nextCheckMillis = Math.min(nextCheckMillis, heartbeatMillis - idleMillis);
+      }
+    }
+    this.scheduleIdleCheck(nextCheckMillis);
+  }
+
+  /**
+   * Closes the socket of the connection.
+   */
+  private void closeSocket() {
     try {
-      bufferedWriter.write(message + "\r\n");
-      bufferedWriter.flush();
+      this.clientSocket.close();
     }
     catch (IOException exception) {
-      throw new RuntimeException("Failed to send message to the client.");
+      Log.warn("Failed to close socket", "exception", exception);
     }
   }
 
@@ -91,186 +459,378 @@ public class ClientHandler implements Runnable {
     return this.player;
   }
 
+  /**
+   * Checks if the client has subscribed to lobby deltas instead of full lobby lists.
+   *
+   * @return {@code true} if the client receives lobby deltas, or {@code false} if not
+   */
+  public boolean isLobbyDeltasEnabled() {
+    return this.lobbyDeltasEnabled;
+  }
+
+  /**
+   * Sets whether the client receives lobby deltas instead of full lobby lists.
+   *
+   * @param lobbyDeltasEnabled {@code true} to send lobby deltas to the client
+   */
+  public void setLobbyDeltasEnabled(boolean lobbyDeltasEnabled) {
+    this.lobbyDeltasEnabled = lobbyDeltasEnabled;
+  }
+
+  /**
+   * Gets the IP address the client connected from.
+   *
+   * @return the IP address of the client
+   */
   public String getIpAddress() {
-    return ipAddress;
+    return this.hostAddress;
   }
 
+  /**
+   * Handles the messages of the client until it disconnects or a message ends the connection,
+   * then closes the socket and cleans up, as the event loop does for non-blocking connections.
+   * A connection ended by a message is given a moment to write its last replies first.
+   */
   @Override
   public void run() {
+    this.startIdleChecks();
+    try {
+      boolean isRunning = true;
+      while (isRunning) {
+        String message = this.receive();
+        if (message == null) {
+          throw new ClientDisconnectedException();
+        }
+        isRunning = this.handleMessage(message);
+      }
+      this.awaitOutboundQueue(CLOSE_FLUSH_MILLIS);
+    }
+    catch (ClientDisconnectedException exception) {
+      // The connection is gone; it is cleaned up below like any other ending.
+    }
+    finally {
+      this.closeSocket();
+      this.handleDisconnect();
+    }
+  }
+
+  /**
+   * Waits until the outbound queue has been written, or until a timeout.
+   *
+   * @param timeoutMillis the longest time (in milliseconds) to wait
+   */
+  private void awaitOutboundQueue(long timeoutMillis) {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    try {
+      while (this.outboundQueue.size() > 0 && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+    }
+    catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Processes a single message received from the client.
+   *
+   * @param message the message received from the client, without the line terminator
+   * @return {@code true} if the connection should stay open, or {@code false} if it should
+   *         be closed
+   */
+  public boolean handleMessage(String message) {
     boolean isRunning = true;
-    while (isRunning) {
-      String ip = this.clientSocket.getInetAddress().getHostAddress();
-      ipAddress = ip;
-      Map<String, String> ipUsernameMap = this.server.getIpUsernameMap();
-      boolean isAdmin = this.server.getIpAdminMap().containsKey(ip);
-      try {
-        String lobbyName;
-        String[] input = this.receive().split(" ");
-        switch (input[0]) {
-          case "REQUEST_USERNAME":
-
-            if (ipUsernameMap.containsKey(ip)) {
-              this.send("USERNAME " + ipUsernameMap.get(ip) + " " + isAdmin);
-              this.player = new Player(ipUsernameMap.get(ip), this, 5);
-              this.server.getClients().add(this);
-              if (isAdmin) {
-                this.server.sendAllFinishedGamesToClient(this);
-              }
-              System.out.println(
-                  this.server.getIpUsernameMap().get(ip) + "|" + ip + " reconnected." + "\r\n");
-            }
-            else if (input[1].equals(Server.VERSION)) {
-              String username = this.server.getUsernameCollection().getRandomUsername();
-              ipUsernameMap.put(ip, username);
-              this.send("USERNAME " + username + " " + isAdmin);
-              this.player = new Player(username, this, 5);
-              this.server.getClients().add(this);
-              System.out.println("Gave new client " + ip + " the username: " + username + "\r\n");
-            }
-            else {
-              isRunning = false;
-              System.out.println(ip + " tried to connect, but has an older version." + "\r\n");
-            }
-            break;
+    this.lastReadNanos = System.nanoTime();
+    String ip = this.hostAddress;
+    long startNanos = System.nanoTime();
+    Command command = null;
+    try {
+      String lobbyName;
+      CommandTokenizer input = this.tokenizer;
+      input.reset(message);
+      command = input.nextCommand();
+      if (command == null) {
+        return isRunning;
+      }
+      switch (command) {
+        case REQUEST_USERNAME:
+          if (this.player != null) {
+            this.send("REQUEST_FAILED");
+          }
+          else if (input.nextEquals(Server.VERSION)) {
+            String username = this.server.getUsernameCollection().getRandomUsername();
+            this.player = new Player(username, this, 5);
+            Session newSession = this.server.getSessions().open(this.player);
+            this.chatRateLimiter = newSession.getChatRateLimiter();
+            this.send("USERNAME " + username + " false " + newSession.getToken());
+            this.server.getClients().add(this);
+            Log.info("Client connected", "player", username, "ip", ip);
+          }
+          else {
+            isRunning = false;
+            Log.info("Rejected client with an older version", "ip", ip);
+          }
+          break;
 
-          case "BECOME_ADMIN":
-            String password = input[1];
-            if (password.equals(this.server.getAdminPassword())) {
-              this.send("BECOME_ADMIN_SUCCESSFUL");
-              this.server.getIpAdminMap().put(ip, true);
-              this.player.setIsAdmin(true);
-              this.server.sendAllFinishedGamesToClient(this);
-              System.out.println(this.server.getIpUsernameMap().get(ip) + "|" + ip
-                                 + " entered the correct admin password and became "
-                                 + "administrator." + "\r\n");
+        case BECOME_ADMIN:
+          if (input.nextEquals(this.server.getAdminPassword())) {
+            this.send("BECOME_ADMIN_SUCCESSFUL");
+            this.player.setIsAdmin(true);
+            this.server.sendFinishedGamesSummary(this);
+            Log.info("Client became admin", "player", this.getPlayerName(), "ip", ip);
+          }
+          else {
+            this.send("BECOME_ADMIN_FAILED");
+            Log.warn("Client entered a wrong admin password", "player", this.getPlayerName(),
+                     "ip", ip);
+          }
+          break;
+
+        case CREATE_LOBBY:
+          lobbyName = input.nextString();
+          ClusterMember createOwner = this.getRemoteOwner(lobbyName);
+          if (createOwner != null) {
+            this.getClusterRelay().send(createOwner, message, "CREATE_LOBBY_FAILED");
+            break;
+          }
+          int numberOfPlayers;
+          int numberOfRounds;
+          int roundTime;
+          String communicationRounds;
+          int communicationRoundTime;
+          int minShrimpKilograms;
+          int maxShrimpKilograms;
+          try {
+            numberOfPlayers = input.nextInt();
+            numberOfRounds = input.nextInt();
+            roundTime = input.nextInt();
+            communicationRounds = input.nextString();
+            communicationRoundTime = input.nextInt();
+            minShrimpKilograms = input.nextInt();
+            maxShrimpKilograms = input.nextInt();
+            this.server.createLobby(lobbyName, numberOfPlayers, numberOfRounds, roundTime,
+                                    communicationRounds, communicationRoundTime, minShrimpKilograms, maxShrimpKilograms);
+            this.send("CREATE_LOBBY_SUCCESS");
+            this.server.sendLobbyInfoToClients();
             }
-            else {
-              this.send("BECOME_ADMIN_FAILED");
-              System.out.println(this.server.getIpUsernameMap().get(ip) + "|" + ip
-                                 + " tried to become administrator, but entered the"
-                                 + " wrong admin password and failed." + "\r\n");
+          catch (NumberFormatException exception) {
+            this.send("CREATE_LOBBY_FAILED");
+            throw new RuntimeException(
+                "Invalid user input received when trying to create lobby.");
+          }
+          catch (RuntimeException exception) {
+            this.send("CREATE_LOBBY_FAILED");
+            throw new RuntimeException(exception.getMessage());
+          }
+          break;
+
+        case REQUEST_LOBBY_LIST:
+          StringBuilder lobbyList = new StringBuilder("LOBBY_LIST");
+          try {
+            Map<String, String> lobbies = this.server.getLobbyUpdater().takeSnapshot();
+            for (String lobbyEntry : lobbies.values()) {
+              lobbyList.append(" " + lobbyEntry);
             }
-            break;
+            this.send(lobbyList.toString());
+            Log.debug("Client requested the lobby list", "player", this.getPlayerName(), "ip", ip,
+                      "lobbies", lobbies.size());
+          }
+          catch (RuntimeException exception) {
+            this.send("REQUEST_FAILED");
+            throw new RuntimeException(exception.getMessage());
+          }
+          break;
+
+        case SUBSCRIBE_LOBBY_DELTAS:
+          this.server.getLobbyUpdater().subscribeToDeltas(this);
+          break;
 
-          case "CREATE_LOBBY":
-            lobbyName = input[1];
-            int numberOfPlayers;
-            int numberOfRounds;
-            int roundTime;
-            String communicationRounds = input[5];
-            int communicationRoundTime;
-            int minShrimpKilograms;
-            int maxShrimpKilograms;
-            try {
-              numberOfPlayers = Integer.parseInt(input[2]);
-              numberOfRounds = Integer.parseInt(input[3]);
-              roundTime = Integer.parseInt(input[4]);
-              communicationRoundTime = Integer.parseInt(input[6]);
-              minShrimpKilograms = Integer.parseInt(input[7]);
-              maxShrimpKilograms = Integer.parseInt(input[8]);
-              this.server.createLobby(lobbyName, numberOfPlayers, numberOfRounds, roundTime,
-                                      communicationRounds, communicationRoundTime, minShrimpKilograms, maxShrimpKilograms);
-              this.send("CREATE_LOBBY_SUCCESS");
-              this.server.sendLobbyInfoToClients();
+        case JOIN_LOBBY:
+          lobbyName = input.nextString();
+          ClusterMember joinOwner = this.getRemoteOwner(lobbyName);
+          if (joinOwner != null) {
+            this.getClusterRelay().join(joinOwner, message, "LOBBY_NOT_EXIST");
+            break;
+          }
+          if (this.clusterRelay != null) {
+            this.clusterRelay.close();
+          }
+          Lobby lobby = this.server.getLobbyCollection().getLobby(lobbyName);
+          if (lobby == null) {
+            this.send("LOBBY_NOT_EXIST");
+            break;
+          }
+          lobby.getLock().lock();
+          try {
+            if (this.server.getLobbyCollection().hasLobby(lobby)) {
+              if (!lobby.isFull()) {
+                this.server.joinLobby(this, lobby);
+                this.send("LOBBY_JOINED");
+                this.lobbyJoined = lobby;
+                this.server.sendLobbyInfoToClients();
+              }
+              else {
+                this.send("LOBBY_FULL");
+              }
+              if (lobby.isFull()) {
+                this.server.startGame(lobby);
               }
-            catch (NumberFormatException exception) {
-              this.send("CREATE_LOBBY_FAILED");
-              throw new RuntimeException(
-                  "Invalid user input received when trying to create lobby.");
-            }
-            catch (RuntimeException exception) {
-              this.send("CREATE_LOBBY_FAILED");
-              throw new RuntimeException(exception.getMessage());
             }
+          }
+          finally {
+            lobby.getLock().unlock();
+          }
+          break;
+
+        case LEAVE_LOBBY:
+          if (this.clusterRelay != null
+              && this.clusterRelay.forwardToActive(message, "LEFT_SUCCESS")) {
             break;
+          }
+          this.server.leaveLobby(this);
+          this.server.sendLobbyInfoToClients();
+          this.send("LEFT_SUCCESS");
+          break;
 
-          case "REQUEST_LOBBY_LIST":
-            StringBuilder lobbyList = new StringBuilder("LOBBY_LIST");
-            try {
-              for (Lobby lobby : this.server.getLobbyGameSettingsMap().keySet()) {
-                String name = lobby.getName();
-                String playerAmount = "" + lobby.getPlayers().size();
-                String capacity = "" + lobby.getMaxPlayers();
-                lobbyList.append(" " + name + "." + playerAmount + "." + capacity);
-              }
-              this.send(lobbyList.toString());
-              System.out.println(
-                  this.server.getIpUsernameMap().get(ip) + "|" + ip + " requested the lobby list: "
-                  + lobbyList + "\r" + "\n");
-            }
-            catch (RuntimeException exception) {
-              this.send("REQUEST_FAILED");
-              throw new RuntimeException(exception.getMessage());
-            }
+        case CATCH_SHRIMP:
+          if (this.clusterRelay != null
+              && this.clusterRelay.forwardToActive(message, "REQUEST_FAILED")) {
             break;
+          }
+          int shrimpToCatch = input.nextInt();
+          this.server.catchShrimp(this, shrimpToCatch);
+          break;
 
-          case "JOIN_LOBBY":
-            synchronized (this.server) {
-              lobbyName = input[1];
-              Lobby lobby = this.server.getNameLobbyMap().get(lobbyName);
-              if (lobby == null) {
-                this.send("LOBBY_NOT_EXIST");
-              }
-              else if (this.server.getLobbyGameSettingsMap().keySet().contains(lobby)) {
-                if (!lobby.isFull()) {
-                  this.server.joinLobby(this, lobbyName);
-                  this.send("LOBBY_JOINED");
-                  this.lobbyJoined = lobby;
-                  this.server.sendLobbyInfoToClients();
-                }
-                else {
-                  this.send("LOBBY_FULL");
-                }
-                if (lobby.isFull()) {
-                  this.server.startGame(lobby);
-                }
-              }
-            }
+        case CHAT_MESSAGE:
+          if (!this.chatRateLimiter.tryAcquire()) {
+            this.send("MESSAGE_RATE_LIMITED");
+            break;
+          }
+          if (this.clusterRelay != null
+              && this.clusterRelay.forwardToActive(message, "REQUEST_FAILED")) {
             break;
+          }
+          String chatMessage = input.nextString();
+          this.server.addMessageToChat(this, chatMessage);
+          break;
 
-          case "LEAVE_LOBBY":
-            this.server.leaveLobby(this);
-            this.server.sendLobbyInfoToClients();
-            this.send("LEFT_SUCCESS");
+        case REQUEST_FINISHED_GAMES:
+          if (this.player == null || !this.player.isAdmin()) {
+            this.send("REQUEST_FAILED");
             break;
+          }
+          int cursor = input.nextInt();
+          int pageSize = input.nextInt();
+          String gameNameFilter = input.hasNext() ? input.nextString() : null;
+          int gameNumberFilter = gameNameFilter != null && input.hasNext() ? input.nextInt() : -1;
+          this.server.sendFinishedGamesPage(this, cursor, pageSize, gameNameFilter,
+                                            gameNumberFilter);
+          break;
+
+        case PING:
+          this.send("PONG");
+          break;
 
-          case "CATCH_SHRIMP":
-            int shrimpToCatch = Integer.parseInt(input[1]);
-            this.server.catchShrimp(this, shrimpToCatch);
-            this.send("CAUGHT_SUCCESSFULLY");
+        case PONG:
+          break;
+
+        case RESUME_SESSION:
+          String token = input.nextString();
+          int lastSequence = input.nextInt();
+          Session resumedSession = this.player == null
+              ? this.server.getSessions().resume(token, this, lastSequence)
+              : null;
+          if (resumedSession == null) {
+            this.send("SESSION_EXPIRED");
             break;
+          }
+          this.player = resumedSession.getPlayer();
+          this.chatRateLimiter = resumedSession.getChatRateLimiter();
+          this.server.getClients().add(this);
+          if (this.player.isAdmin()) {
+            this.server.sendFinishedGamesSummary(this);
+          }
+          break;
 
-          case "CHAT_MESSAGE":
-            String message = input[1];
-            this.server.addMessageToChat(this, message);
-            this.send("MESSAGE_RECEIVED");
+        case ACK:
+          Session ackedSession = this.session;
+          if (ackedSession != null) {
+            ackedSession.acknowledge(input.nextInt());
+          }
+          break;
+
+        case CLUSTER_SUBSCRIBE:
+          if (!this.server.getCluster().isValidSecret(input.nextString())) {
+            this.send("REQUEST_FAILED");
+            isRunning = false;
+            Log.warn("Rejected cluster node with a wrong secret", "ip", ip);
             break;
+          }
+          String peerNodeId = input.nextString();
+          this.clusterConnection = true;
+          this.server.getLobbyUpdater().subscribePeer(this);
+          Log.info("Cluster node subscribed to lobbies", "node", peerNodeId, "ip", ip);
+          break;
 
-          default:
+        case CLUSTER_ATTACH:
+          if (!this.server.getCluster().isValidSecret(input.nextString())) {
+            this.send("REQUEST_FAILED");
+            isRunning = false;
+            Log.warn("Rejected cluster node with a wrong secret", "ip", ip);
             break;
-        }
-      }
-      catch (ClientDisconnectedException exception) {
-        System.err.println(
-            this.server.getIpUsernameMap().get(ip) + "|" + ip + " disconnected." + "\r\n");
-        this.server.getClients().remove(this);
-        boolean clientRemovedFromLobby = false;
-        Iterator<Lobby> iterator = this.server.getLobbyGameSettingsMap().keySet().iterator();
-        while (!clientRemovedFromLobby && iterator.hasNext()) {
-          Lobby lobby = iterator.next();
-          if (lobby.hasPlayer(this.player)) {
-            lobby.getPlayers().remove(this.player);
-            clientRemovedFromLobby = true;
-            this.server.sendLobbyInfoToClients();
           }
-        }
-        isRunning = false;
-      }
-      catch (RuntimeException exception) {
-        System.err.println("Exception: " + exception + "\r\n");
-        isRunning = false;
+          if (this.player != null) {
+            this.send("REQUEST_FAILED");
+            break;
+          }
+          this.clusterConnection = true;
+          this.player = new Player(input.nextString(), this, 5);
+          Log.debug("Relayed client attached", "player", this.player.getName(), "ip", ip);
+          break;
+
+        default:
+          break;
       }
+    }
+    catch (RuntimeException exception) {
+      Log.warn("Failed to handle message", "ip", this.hostAddress, "exception", exception);
+      isRunning = false;
+    }
+    if (command != null) {
+      this.server.getMetrics().recordCommand(command, System.nanoTime() - startNanos, !isRunning);
+    }
+    return isRunning;
+  }
 
+  /**
+   * Cleans up after the client has disconnected by removing it from the list of clients and
+   * from the lobby it was in. A client with a session keeps its seat in its game until the
+   * session expires; a client whose session has been taken over by a new connection leaves
+   * its player alone.
+   */
+  public void handleDisconnect() {
+    this.disconnected = true;
+    HashedWheelTimer.Timeout pendingIdleCheck = this.idleCheck;
+    if (pendingIdleCheck != null) {
+      pendingIdleCheck.cancel();
+    }
+    Log.info("Client disconnected", "player", this.getPlayerName(), "ip", this.hostAddress);
+    this.server.getClients().remove(this);
+    if (this.clusterRelay != null) {
+      this.clusterRelay.close();
+    }
+    if (this.clusterConnection) {
+      this.server.getLobbyUpdater().unsubscribePeer(this);
+    }
+    Session currentSession = this.session;
+    if (currentSession == null) {
+      this.server.leaveGame(this.player);
+    }
+    else if (!this.server.getSessions().detach(currentSession, this)) {
+      return;
+    }
+    if (this.server.getLobbyCollection().removePlayer(this.player) != null) {
+      this.server.sendLobbyInfoToClients();
     }
   }
 }
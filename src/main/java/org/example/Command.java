@@ -0,0 +1,45 @@
+package org.example;
+
+/**
+ * The commands a client can send to the server. The name of each constant is the command token
+ * used on the wire.
+ */
+public enum Command {
+  REQUEST_USERNAME,
+  BECOME_ADMIN,
+  CREATE_LOBBY,
+  REQUEST_LOBBY_LIST,
+  SUBSCRIBE_LOBBY_DELTAS,
+  JOIN_LOBBY,
+  LEAVE_LOBBY,
+  CATCH_SHRIMP,
+  CHAT_MESSAGE,
+  REQUEST_FINISHED_GAMES,
+  PING,
+  PONG,
+  RESUME_SESSION,
+  ACK,
+  CLUSTER_SUBSCRIBE,
+  CLUSTER_ATTACH;
+
+  private static final Command[] COMMANDS = values();
+
+  /**
+   * Finds the command whose token matches a region of a line, without creating a substring.
+   *
+   * @param line  the line containing the token
+   * @param start the index of the first character of the token
+   * @param end   the index after the last character of the token
+   * @return the matching command, or {@code null} if the token is not a known command
+   */
+  public static Command match(String line, int start, int end) {
+    int length = end - start;
+    for (Command command : COMMANDS) {
+      String token = command.name();
+      if (token.length() == length && line.regionMatches(start, token, 0, length)) {
+        return command;
+      }
+    }
+    return null;
+  }
+}
@@ -0,0 +1,139 @@
+package org.example;
+
+import java.util.NoSuchElementException;
+
+/**
+ * The CommandTokenizer class splits a received line into space separated tokens.
+ * <p>
+ * Tokens are located by index into the line rather than copied, so matching the command and
+ * parsing numeric fields does not allocate. A string is only created when a token is needed as
+ * a string. Tokens are separated by single spaces exactly like {@code line.split(" ")}. One
+ * instance is reused for every line received on a connection and must not be shared between
+ * connections.
+ */
+public class CommandTokenizer {
+  private String line;
+  private int position;
+  private int tokenStart;
+  private int tokenEnd;
+
+  /**
+   * Starts tokenizing a new line.
+   *
+   * @param line the line to tokenize
+   */
+  public void reset(String line) {
+    this.line = line;
+    this.position = 0;
+    this.tokenStart = 0;
+    this.tokenEnd = 0;
+  }
+
+  /**
+   * Reads the first token of the line as a command.
+   *
+   * @return the command, or {@code null} if the token is not a known command
+   */
+  public Command nextCommand() {
+    this.advance();
+    return Command.match(this.line, this.tokenStart, this.tokenEnd);
+  }
+
+  /**
+   * Checks if the line has more tokens.
+   *
+   * @return {@code true} if there is another token, or {@code false} if not
+   */
+  public boolean hasNext() {
+    return this.position <= this.line.length();
+  }
+
+  /**
+   * Reads the next token as a string.
+   *
+   * @return the next token
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  public String nextString() {
+    this.advance();
+    return this.line.substring(this.tokenStart, this.tokenEnd);
+  }
+
+  /**
+   * Reads the next token and compares it to an expected value.
+   *
+   * @param expected the expected value of the token
+   * @return {@code true} if the token equals the expected value, or {@code false} if not
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  public boolean nextEquals(String expected) {
+    this.advance();
+    int length = this.tokenEnd - this.tokenStart;
+    return expected.length() == length
+           && this.line.regionMatches(this.tokenStart, expected, 0, length);
+  }
+
+  /**
+   * Reads the next token as a decimal integer, following the rules of
+   * {@link Integer#parseInt(String)}.
+   *
+   * @return the integer value of the next token
+   * @throws NoSuchElementException if there are no more tokens
+   * @throws NumberFormatException  if the token is not a valid integer
+   */
+  public int nextInt() {
+    this.advance();
+    int index = this.tokenStart;
+    int end = this.tokenEnd;
+    boolean negative = false;
+    if (index < end && (this.line.charAt(index) == '-' || this.line.charAt(index) == '+')) {
+      negative = this.line.charAt(index) == '-';
+      index++;
+    }
+    if (index == end) {
+      throw this.invalidNumber();
+    }
+    int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+    int result = 0;
+    while (index < end) {
+      int digit = Character.digit(this.line.charAt(index++), 10);
+      if (digit < 0 || result < limit / 10) {
+        throw this.invalidNumber();
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        throw this.invalidNumber();
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * Moves to the next token.
+   *
+   * @throws NoSuchElementException if there are no more tokens
+   */
+  private void advance() {
+    if (this.position > this.line.length()) {
+      throw new NoSuchElementException("Missing token in: " + this.line);
+    }
+    int end = this.line.indexOf(' ', this.position);
+    if (end == -1) {
+      end = this.line.length();
+    }
+    this.tokenStart = this.position;
+    this.tokenEnd = end;
+    this.position = end + 1;
+  }
+
+  /**
+   * Creates the exception thrown for a token that is not a valid integer.
+   *
+   * @return the exception to throw
+   */
+  private NumberFormatException invalidNumber() {
+    return new NumberFormatException(
+        "For input string: \"" + this.line.substring(this.tokenStart, this.tokenEnd) + "\"");
+  }
+}
@@ -0,0 +1,22 @@
+package org.example;
+
+/**
+ * The networking modes the server can use for client connections.
+ */
+public enum ConnectionMode {
+  /**
+   * One platform thread per connection, blocking on {@code readLine()}.
+   */
+  BLOCKING,
+
+  /**
+   * One virtual thread per connection, blocking on {@code readLine()} without holding on to a
+   * platform thread while waiting.
+   */
+  VIRTUAL,
+
+  /**
+   * A small, fixed set of selector-based event loop threads shared by all connections.
+   */
+  NIO
+}
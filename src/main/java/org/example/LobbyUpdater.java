@@ -0,0 +1,268 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.log.Log;
+import org.example.logic.Lobby;
+
+/**
+ * The LobbyUpdater class sends lobby list updates to the clients.
+ * <p>
+ * Update requests arriving within a short window are coalesced into one update. Clients receive
+ * the full list as {@code UPDATE LOBBY name.players.capacity ...}, unless they have subscribed to
+ * deltas with {@code SUBSCRIBE_LOBBY_DELTAS}. Subscribed clients receive only the lobbies that
+ * changed since the previous update as {@code UPDATE LOBBY_DELTA}, where each entry is prefixed
+ * with {@code +} (added), {@code ~} (player count changed) or {@code -} (removed, name only).
+ * <p>
+ * Lobby updates are the first messages dropped for a client that is over its outbound budget.
+ * A subscribed client that missed an update is sent the full list instead of the next delta,
+ * and any client that missed an update is sent the full list as soon as it has caught up (see
+ * {@link #resendFullUpdate(ClientHandler)}).
+ * <p>
+ * In a cluster, the lists sent to clients include the lobbies of the other nodes. The other
+ * nodes subscribe as peers, and are sent the full list of only the local lobbies whenever it
+ * changes.
+ */
+public class LobbyUpdater {
+  private final Server server;
+  private final long windowMillis;
+  private final ScheduledExecutorService scheduler;
+  private final AtomicBoolean updateScheduled;
+  private final Lock updateLock;
+  private final List<ClientHandler> peers;
+  private Map<String, String> lastSnapshot;
+  private Map<String, String> lastLocalSnapshot;
+
+  /**
+   * Creates a new instance of {@code LobbyUpdater}.
+   *
+   * @param server       the main server application
+   * @param windowMillis the time (in milliseconds) to wait for more changes before sending an
+   *                     update, or {@code 0} to send every update immediately
+   */
+  public LobbyUpdater(Server server, long windowMillis) {
+    this.server = server;
+    this.windowMillis = windowMillis;
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "lobby-updater");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.updateScheduled = new AtomicBoolean(false);
+    this.updateLock = new ReentrantLock();
+    this.peers = new CopyOnWriteArrayList<>();
+    this.lastSnapshot = Collections.emptyMap();
+    this.lastLocalSnapshot = Collections.emptyMap();
+  }
+
+  /**
+   * Requests that the clients are told about the current lobbies. The update is sent once the
+   * coalescing window has passed, together with any other changes made in the meantime.
+   */
+  public void requestUpdate() {
+    if (this.windowMillis == 0) {
+      this.sendUpdate();
+    }
+    else if (this.updateScheduled.compareAndSet(false, true)) {
+      this.scheduler.schedule(this::sendUpdate, this.windowMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Subscribes a client to lobby deltas. The client is sent the full list the next delta will
+   * be relative to.
+   *
+   * @param client the client to subscribe
+   */
+  public void subscribeToDeltas(ClientHandler client) {
+    this.updateLock.lock();
+    try {
+      client.send("LOBBY_DELTAS_ENABLED");
+      client.sendLobbyUpdate(Server.encodeMessage(this.buildFullUpdate(this.lastSnapshot)), true);
+      client.setLobbyDeltasEnabled(true);
+    }
+    finally {
+      this.updateLock.unlock();
+    }
+  }
+
+  /**
+   * Subscribes another cluster node to the local lobbies. The node is sent the current list
+   * right away.
+   *
+   * @param peer the connection of the other node
+   */
+  public void subscribePeer(ClientHandler peer) {
+    this.updateLock.lock();
+    try {
+      peer.sendLobbyUpdate(Server.encodeMessage(this.buildFullUpdate(this.lastLocalSnapshot)),
+                           true);
+      this.peers.add(peer);
+    }
+    finally {
+      this.updateLock.unlock();
+    }
+  }
+
+  /**
+   * Unsubscribes another cluster node from the local lobbies.
+   *
+   * @param peer the connection of the other node
+   */
+  public void unsubscribePeer(ClientHandler peer) {
+    this.peers.remove(peer);
+  }
+
+  /**
+   * Sends the last lobby list again to a client that missed an update while it was over its
+   * outbound budget, so its list is not left stale until the lobbies next change. A cluster
+   * peer is sent the list of the local lobbies.
+   *
+   * @param client the client that has caught up with its outbound queue
+   */
+  public void resendFullUpdate(ClientHandler client) {
+    this.updateLock.lock();
+    try {
+      Map<String, String> snapshot =
+          this.peers.contains(client) ? this.lastLocalSnapshot : this.lastSnapshot;
+      client.sendLobbyUpdate(Server.encodeMessage(this.buildFullUpdate(snapshot)), true);
+    }
+    finally {
+      this.updateLock.unlock();
+    }
+  }
+
+  /**
+   * Sends the changes since the previous update to the clients, if there are any.
+   */
+  private void sendUpdate() {
+    this.updateScheduled.set(false);
+    this.updateLock.lock();
+    try {
+      Map<String, String> localSnapshot = this.takeLocalSnapshot();
+      Map<String, String> snapshot = new LinkedHashMap<>(localSnapshot);
+      this.server.getCluster().addRemoteLobbies(snapshot);
+      if (snapshot.equals(this.lastSnapshot)) {
+        return;
+      }
+      if (!localSnapshot.equals(this.lastLocalSnapshot) && !this.peers.isEmpty()) {
+        this.broadcast(this.buildFullUpdate(localSnapshot), this.peers, true);
+      }
+      this.lastLocalSnapshot = localSnapshot;
+      List<ClientHandler> fullRecipients = new ArrayList<>();
+      List<ClientHandler> deltaRecipients = new ArrayList<>();
+      for (ClientHandler client : this.server.getClients()) {
+        if (client.isLobbyDeltasEnabled() && !client.isLobbyUpdateDropped()) {
+          deltaRecipients.add(client);
+        }
+        else {
+          fullRecipients.add(client);
+        }
+      }
+      if (!fullRecipients.isEmpty()) {
+        this.broadcast(this.buildFullUpdate(snapshot), fullRecipients, true);
+      }
+      if (!deltaRecipients.isEmpty()) {
+        this.broadcast(this.buildDeltaUpdate(this.lastSnapshot, snapshot), deltaRecipients, false);
+      }
+      this.lastSnapshot = snapshot;
+      Log.debug("Sent lobby update", "lobbies", snapshot.size(), "full", fullRecipients.size(),
+                "delta", deltaRecipients.size());
+    }
+    finally {
+      this.updateLock.unlock();
+    }
+  }
+
+  /**
+   * Sends a lobby update to several clients. The update is encoded once and shared by every
+   * recipient, and is dropped for recipients that are over their outbound budget.
+   *
+   * @param update     the update message
+   * @param recipients the clients to send the update to
+   * @param fullList   {@code true} if the update is the full lobby list
+   */
+  private void broadcast(String update, List<ClientHandler> recipients, boolean fullList) {
+    ByteBuffer encodedUpdate = Server.encodeMessage(update);
+    for (ClientHandler client : recipients) {
+      client.sendLobbyUpdate(encodedUpdate, fullList);
+    }
+    this.server.getMetrics().recordBroadcast(recipients.size());
+  }
+
+  /**
+   * Takes a snapshot of the open lobbies, including those on other cluster nodes.
+   *
+   * @return a map from lobby name to the lobby's {@code name.players.capacity} entry
+   */
+  Map<String, String> takeSnapshot() {
+    Map<String, String> snapshot = this.takeLocalSnapshot();
+    this.server.getCluster().addRemoteLobbies(snapshot);
+    return snapshot;
+  }
+
+  /**
+   * Takes a snapshot of the lobbies open on this node.
+   *
+   * @return a map from lobby name to the lobby's {@code name.players.capacity} entry
+   */
+  private Map<String, String> takeLocalSnapshot() {
+    Map<String, String> snapshot = new LinkedHashMap<>();
+    for (Lobby lobby : this.server.getLobbyCollection().getLobbies()) {
+      String name = lobby.getName();
+      snapshot.put(name, name + "." + lobby.getPlayers().size() + "." + lobby.getMaxPlayers());
+    }
+    return snapshot;
+  }
+
+  /**
+   * Builds the full lobby list message.
+   *
+   * @param snapshot the lobbies to list
+   * @return the {@code UPDATE LOBBY} message
+   */
+  String buildFullUpdate(Map<String, String> snapshot) {
+    StringBuilder lobbyInfoData = new StringBuilder("UPDATE LOBBY");
+    for (String entry : snapshot.values()) {
+      lobbyInfoData.append(' ').append(entry);
+    }
+    return lobbyInfoData.toString();
+  }
+
+  /**
+   * Builds the message describing the changes between two snapshots.
+   *
+   * @param previous the snapshot the subscribed clients already have
+   * @param current  the new snapshot
+   * @return the {@code UPDATE LOBBY_DELTA} message
+   */
+  private String buildDeltaUpdate(Map<String, String> previous, Map<String, String> current) {
+    StringBuilder delta = new StringBuilder("UPDATE LOBBY_DELTA");
+    for (Map.Entry<String, String> entry : current.entrySet()) {
+      String previousEntry = previous.get(entry.getKey());
+      if (previousEntry == null) {
+        delta.append(" +").append(entry.getValue());
+      }
+      else if (!previousEntry.equals(entry.getValue())) {
+        delta.append(" ~").append(entry.getValue());
+      }
+    }
+    for (String name : previous.keySet()) {
+      if (!current.containsKey(name)) {
+        delta.append(" -").append(name);
+      }
+    }
+    return delta.toString();
+  }
+}
@@ -8,11 +8,12 @@ public class Main
     /**
      * The main method that launches the server application by starting it.
      *
-     * @param args the command line arguments passed to the application
+     * @param args the command line arguments passed to the application, in the format
+     *             {@code --name=value} (see {@link ServerSettings})
      */
     public static void main(String[] args)
     {
-        Server server = new Server();
+        Server server = new Server(ServerSettings.fromArguments(args));
         server.start();
     }
-}
\ No newline at end of file
+}
@@ -3,51 +3,114 @@ package org.example;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.text.SimpleDateFormat;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.cluster.Cluster;
+import org.example.log.Level;
+import org.example.log.Log;
 import org.example.logic.GameCollection;
 import org.example.logic.GameSettings;
 import org.example.logic.Game;
+import org.example.logic.HashedWheelTimer;
 import org.example.logic.Lobby;
+import org.example.logic.LobbyCollection;
 import org.example.logic.Player;
 import org.example.logic.Round;
 import org.example.logic.UsernameCollection;
+import org.example.metrics.MetricsHttpServer;
+import org.example.network.NioServer;
+import org.example.storage.ChatArchive;
+import org.example.storage.FinishedGameStore;
 
 /**
  * The Server class represents the main server application, responsible for creating and managing
  * game lobbies, handling client connections, and coordinating game logic.
  */
 public class Server {
-  private static final int PORT = 8080;
+  private static final int FINISHED_GAME_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final int MAX_FINISHED_GAMES_PAGE_SIZE = 100;
+  private static final int FINISHED_GAMES_SCAN_LIMIT = 4096;
+  private static final int TIMER_TICK_MILLIS = 100;
+  private static final int TIMER_WHEEL_SIZE = 512;
+  private static final long CLUSTER_USERNAME_SEED = 0x5348524d50L;
   public static final String VERSION = "1.7.7";
-  private final Map<Lobby, GameSettings> lobbyGameSettingsMap;
-  private final Map<String, Lobby> nameLobbyMap;
+  private final LobbyCollection lobbyCollection;
   private final List<ClientHandler> clients;
-  private final List<Game> finishedGames;
+  private final FinishedGameStore finishedGames;
+  private final ChatArchive chatArchive;
   private final UsernameCollection usernameCollection;
-  private final Map<String, String> ipUsernameMap;
-  private final Map<String, Boolean> ipAdminMap;
+  private final SessionRegistry sessions;
   private final String adminPassword;
+  private final ServerSettings settings;
+  private final Lock finishedGamesLock;
+  private final ExecutorService outboundWriter;
+  private final ExecutorService gameExecutor;
+  private final LobbyUpdater lobbyUpdater;
+  private final ServerMetrics metrics;
+  private final ChatClock chatClock;
+  private final HashedWheelTimer timer;
+  private final Cluster cluster;
   private int mostRecentGameIndex;
 
   /**
-   * Constructs a new Server object and initializes the lobbies, games, and clients ArrayLists.
+   * Constructs a new Server object with the default settings.
    */
   public Server() {
-    this.lobbyGameSettingsMap = new HashMap<Lobby, GameSettings>();
-    this.nameLobbyMap = new HashMap<String, Lobby>();
-    this.clients = new ArrayList<ClientHandler>();
-    this.finishedGames = new ArrayList<>();
-    this.usernameCollection = new UsernameCollection();
-    this.ipUsernameMap = new HashMap<String, String>();
-    this.ipAdminMap = new HashMap<String, Boolean>();
+    this(new ServerSettings());
+  }
+
+  /**
+   * Constructs a new Server object and initializes the lobbies, games, and clients ArrayLists.
+   *
+   * @param settings the startup settings of the server.
+   */
+  public Server(ServerSettings settings) {
+    this.settings = settings;
+    Log.setLevel(settings.getLogLevel());
+    this.lobbyCollection = new LobbyCollection();
+    this.clients = new CopyOnWriteArrayList<ClientHandler>();
+    try {
+      this.finishedGames = new FinishedGameStore(
+          settings.getDataDirectory().resolve("finished-games"), FINISHED_GAME_SEGMENT_SIZE,
+          settings.getFinishedGameCacheSize());
+    }
+    catch (IOException exception) {
+      throw new RuntimeException("Failed to open the finished games store: " + exception);
+    }
+    try {
+      this.chatArchive =
+          new ChatArchive(settings.getDataDirectory().resolve("chat-archive.log"));
+    }
+    catch (IOException exception) {
+      throw new RuntimeException("Failed to open the chat archive: " + exception);
+    }
+    this.sessions = new SessionRegistry(this);
     this.adminPassword = "detteerbra";
+    this.finishedGamesLock = new ReentrantLock();
+    this.outboundWriter = Executors.newVirtualThreadPerTaskExecutor();
+    this.gameExecutor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors(),
+        Thread.ofPlatform().name("game-", 0).daemon(true).factory());
+    this.lobbyUpdater = new LobbyUpdater(this, settings.getLobbyUpdateWindowMillis());
+    this.cluster = new Cluster(this, settings.getClusterNodes(), settings.getNodeId(),
+                               settings.getClusterSecret());
+    this.usernameCollection = this.cluster.isEnabled()
+        ? new UsernameCollection(CLUSTER_USERNAME_SEED, this.cluster.getLocalIndex(),
+                                 this.cluster.size())
+        : new UsernameCollection();
+    this.metrics = new ServerMetrics(this);
+    this.chatClock = new ChatClock(settings.getChatTimeZone());
+    this.timer = new HashedWheelTimer("server-timer", TIMER_TICK_MILLIS, TimeUnit.MILLISECONDS,
+                                      TIMER_WHEEL_SIZE);
     this.mostRecentGameIndex = 0;
   }
 
@@ -69,12 +132,13 @@ public class Server {
     return this.usernameCollection;
   }
 
-  public Map<String, String> getIpUsernameMap() {
-    return this.ipUsernameMap;
-  }
-
-  public Map<String, Boolean> getIpAdminMap() {
-    return this.ipAdminMap;
+  /**
+   * Gets the sessions of the clients, which let a client resume playing after reconnecting.
+   *
+   * @return the session registry.
+   */
+  public SessionRegistry getSessions() {
+    return this.sessions;
   }
 
   /**
@@ -87,24 +151,20 @@ public class Server {
   }
 
   /**
-   * Returns a list of all available lobbies on the server.
+   * Returns the collection of all open lobbies on the server.
    *
-   * @return a list of lobbies
+   * @return the open lobbies and their game settings
    */
-  public Map<Lobby, GameSettings> getLobbyGameSettingsMap() {
-    return this.lobbyGameSettingsMap;
+  public LobbyCollection getLobbyCollection() {
+    return this.lobbyCollection;
   }
 
   /**
-   * Gets a map of lobbies with their respective names.
+   * Gets the store holding every finished game.
    *
-   * @return a map of lobbies and names of the lobbies.
+   * @return the finished games store.
    */
-  public Map<String, Lobby> getNameLobbyMap() {
-    return this.nameLobbyMap;
-  }
-
-  public List<Game> getFinishedGames() {
+  public FinishedGameStore getFinishedGames() {
     return this.finishedGames;
   }
 
@@ -117,20 +177,126 @@ public class Server {
   }
 
   /**
-   * Starts the server application.
+   * Gets the startup settings of the server.
+   *
+   * @return the settings of the server.
+   */
+  public ServerSettings getSettings() {
+    return this.settings;
+  }
+
+  /**
+   * Gets the executor that writes queued outbound messages to blocking client sockets.
+   *
+   * @return the outbound writer executor.
+   */
+  public ExecutorService getOutboundWriter() {
+    return this.outboundWriter;
+  }
+
+  /**
+   * Gets the timer that runs round deadlines and idle connection checks.
+   *
+   * @return the server timer.
+   */
+  public HashedWheelTimer getTimer() {
+    return this.timer;
+  }
+
+  /**
+   * Gets the cluster the server is part of.
+   *
+   * @return the cluster, which owns every lobby locally if the server runs on its own.
+   */
+  public Cluster getCluster() {
+    return this.cluster;
+  }
+
+  /**
+   * Gets the updater that sends lobby list updates to the clients.
+   *
+   * @return the lobby updater.
+   */
+  public LobbyUpdater getLobbyUpdater() {
+    return this.lobbyUpdater;
+  }
+
+  /**
+   * Gets the metrics the server records about itself.
+   *
+   * @return the server metrics.
+   */
+  public ServerMetrics getMetrics() {
+    return this.metrics;
+  }
+
+  /**
+   * Starts the server application using the configured {@link ConnectionMode}.
    */
   public void start() {
-    try (ServerSocket serverSocket = new ServerSocket(PORT)) {
-      System.out.println("Server started on port " + PORT + "\r\n");
+    this.startMetrics();
+    this.cluster.start();
+    if (this.settings.getConnectionMode() == ConnectionMode.NIO) {
+      this.startNio();
+    }
+    else {
+      this.startBlocking(this.settings.getConnectionMode() == ConnectionMode.VIRTUAL);
+    }
+  }
+
+  /**
+   * Starts serving the metrics over HTTP, unless the metrics port is {@code 0}.
+   */
+  private void startMetrics() {
+    if (this.settings.getMetricsPort() == 0) {
+      return;
+    }
+    try {
+      MetricsHttpServer metricsServer = new MetricsHttpServer(
+          this.metrics.getRegistry(), this.settings.getMetricsHost(), this.settings.getMetricsPort());
+      metricsServer.start();
+      Log.info("Metrics server started", "host", this.settings.getMetricsHost(), "port",
+               metricsServer.getPort());
+    }
+    catch (IOException exception) {
+      Log.error("Failed to open the metrics server", "exception", exception);
+    }
+  }
+
+  /**
+   * Starts the server with one thread per client connection.
+   *
+   * @param virtual {@code true} to run each connection on a virtual thread, or {@code false} to
+   *                run each connection on a platform thread.
+   */
+  private void startBlocking(boolean virtual) {
+    Thread.Builder threadBuilder = virtual ? Thread.ofVirtual().name("client-virtual-", 0)
+                                           : Thread.ofPlatform().name("client-", 0);
+    int port = this.settings.getPort();
+    try (ServerSocket serverSocket = new ServerSocket(port)) {
+      Log.info("Server started", "port", port, "threads", virtual ? "virtual" : "platform");
       while (true) {
         Socket clientSocket = serverSocket.accept();
         ClientHandler clientHandler = new ClientHandler(clientSocket, this);
-        Thread clientThread = new Thread(clientHandler);
-        clientThread.start();
+        threadBuilder.start(clientHandler);
       }
     }
     catch (IOException exception) {
-      System.err.println("Failed to open a server socket: " + exception);
+      Log.error("Failed to open a server socket", "exception", exception);
+    }
+  }
+
+  /**
+   * Starts the server with a fixed set of selector-based event loop threads.
+   */
+  private void startNio() {
+    try {
+      NioServer nioServer = new NioServer(this, this.settings.getPort(),
+                                          this.settings.getEventLoopThreads());
+      nioServer.start();
+    }
+    catch (IOException exception) {
+      Log.error("Failed to open the event loops", "exception", exception);
     }
   }
 
@@ -146,7 +312,7 @@ public class Server {
    * @param minShrimpKilograms     the minimum amount of shrimp that can be caught in a round
    * @param maxShrimpKilograms     the maximum amount of shrimp that can be caught in a round
    * @throws RuntimeException if there is an error creating the lobby, such as if the lobby
-   *                          name is null or empty
+   *                          name is null, empty or already in use
    */
   public void createLobby(String lobbyName, int numPlayers, int numRounds, int roundTime,
                           String communicationRounds, int communicationRoundTime,
@@ -156,9 +322,8 @@ public class Server {
       GameSettings gameSettings = new GameSettings(numPlayers, numRounds, roundTime,
                                                    communicationRounds, communicationRoundTime,
                                                    minShrimpKilograms, maxShrimpKilograms);
-      this.lobbyGameSettingsMap.put(lobby, gameSettings);
-      this.nameLobbyMap.put(lobby.getName(), lobby);
-      System.out.println("Created a new lobby called: " + lobbyName + "\r\n");
+      this.lobbyCollection.addLobby(lobby, gameSettings);
+      Log.info("Created lobby", "lobby", lobbyName);
     }
     catch (IllegalArgumentException exception) {
       throw new RuntimeException("Failed to create lobby.");
@@ -167,24 +332,16 @@ public class Server {
 
 
   /**
-   * Adds the specified client handler to the lobby with the specified name, creating a new
-   * game if the lobby is full.
+   * Adds the specified client handler to the specified lobby. The caller must hold the lock of
+   * the lobby.
    *
    * @param clientHandler the client handler to add to the lobby
-   * @param lobbyName     the name of the lobby to join
+   * @param lobby         the lobby to join
    */
-  public void joinLobby(ClientHandler clientHandler, String lobbyName) {
+  public void joinLobby(ClientHandler clientHandler, Lobby lobby) {
     Player player = clientHandler.getPlayer();
-    Iterator<Lobby> iterator = this.lobbyGameSettingsMap.keySet().iterator();
-    boolean finished = false;
-    while (!finished && iterator.hasNext()) {
-      Lobby lobby = iterator.next();
-      if (lobby.getName().equals(lobbyName)) {
-        lobby.getPlayers().add(player);
-        finished = true;
-      }
-    }
-    System.out.println(player.getName() + " joined the lobby " + lobbyName + "\r\n");
+    this.lobbyCollection.addPlayer(player, lobby);
+    Log.info("Player joined lobby", "player", player.getName(), "lobby", lobby.getName());
   }
 
   /**
@@ -194,178 +351,411 @@ public class Server {
    */
   public void leaveLobby(ClientHandler clientHandler) {
     Player player = clientHandler.getPlayer();
-    Iterator<Lobby> iterator = this.lobbyGameSettingsMap.keySet().iterator();
-    boolean finished = false;
-    String lobbyName = "";
-    while (!finished && iterator.hasNext()) {
-      Lobby lobby = iterator.next();
-      if (lobby.hasPlayer(player)) {
-        lobby.getPlayers().remove(player);
-        lobbyName = lobby.getName();
-        finished = true;
-      }
-    }
-    System.out.println(player.getName() + " left the lobby " + lobbyName + "\r\n");
+    Lobby lobby = this.lobbyCollection.removePlayer(player);
+    String lobbyName = lobby == null ? "" : lobby.getName();
+    Log.info("Player left lobby", "player", player.getName(), "lobby", lobbyName);
   }
 
   /**
-   * Starts a specified game.
+   * Starts a specified game. The caller must hold the lock of the lobby.
    *
    * @param lobby the game to start.
    */
   public void startGame(Lobby lobby) {
-    GameSettings gameSettings = new GameSettings(this.lobbyGameSettingsMap.get(lobby));
+    GameSettings gameSettings = new GameSettings(this.lobbyCollection.getGameSettings(lobby));
     GameCollection gameCollection = new GameCollection(lobby.getName(), gameSettings,
-                                                       lobby.getPlayers());
-    for (ClientHandler client : this.getClients()) {
-      Player player = client.getPlayer();
-      if (lobby.hasPlayer(player)) {
-        List<Game> games = gameCollection.getIslands();
-        Game playerGame = null;
-        Iterator<Game> iterator = games.iterator();
-        boolean gameFound = false;
-        while (!gameFound && iterator.hasNext()) {
-          Game game = iterator.next();
-          if (game.hasPlayer(player)) {
-            playerGame = game;
-            gameFound = true;
+                                                       lobby.getPlayers(), this.gameExecutor,
+                                                       this.settings.getChatHistorySize());
+    StringBuilder settingsData = new StringBuilder();
+    settingsData.append(" " + gameSettings.getNumberOfRounds());
+    settingsData.append(" " + gameSettings.getRoundTime());
+    settingsData.append(" " + gameSettings.getCommunicationRounds());
+    settingsData.append(" " + gameSettings.getCommunicationRoundTime());
+    settingsData.append(" " + gameSettings.getMinShrimpKilograms());
+    settingsData.append(" " + gameSettings.getMaxShrimpKilograms());
+    String settingsInfo = settingsData.toString();
+    for (Game game : gameCollection.getIslands()) {
+      game.getMailbox().execute(() -> this.scheduleRoundDeadline(game));
+    }
+    for (Player player : lobby.getPlayers()) {
+      Game playerGame = gameCollection.getGame(player);
+      if (playerGame != null) {
+        StringBuilder gameStarted = new StringBuilder("UPDATE GAME_STARTED");
+        for (Player otherPlayer : playerGame.getPlayers()) {
+          if (otherPlayer != player) {
+            gameStarted.append(" " + otherPlayer.getName());
           }
         }
-        StringBuilder gameStarted = new StringBuilder("UPDATE GAME_STARTED");
-        List<Player> otherPlayers = new ArrayList<>(playerGame.getPlayers());
-        otherPlayers.remove(player);
-        gameStarted.append(
-            " " + otherPlayers.get(0).getName() + " " + otherPlayers.get(1).getName());
-        gameStarted.append(" " + gameSettings.getNumberOfRounds());
-        gameStarted.append(" " + gameSettings.getRoundTime());
-        gameStarted.append(" " + gameSettings.getCommunicationRounds());
-        gameStarted.append(" " + gameSettings.getCommunicationRoundTime());
-        gameStarted.append(" " + gameSettings.getMinShrimpKilograms());
-        gameStarted.append(" " + gameSettings.getMaxShrimpKilograms());
+        gameStarted.append(settingsInfo);
         gameStarted.append(" " + playerGame.getNumber());
         gameStarted.append(" " + gameCollection.getName());
-        client.send(gameStarted.toString());
+        player.getClientHandler().sendEvent(gameStarted.toString());
       }
     }
-    this.lobbyGameSettingsMap.remove(lobby, this.lobbyGameSettingsMap.get(lobby));
-    this.nameLobbyMap.remove(lobby.getName(), lobby);
+    this.lobbyCollection.removeLobby(lobby);
     this.sendLobbyInfoToClients();
-    System.out.println("The game " + lobby.getName() + " has started" + "\r\n");
+    this.metrics.gamesStarted(gameCollection.getIslands().size());
+    Log.info("Game started", "game", lobby.getName());
   }
 
-  public synchronized void endGame(Game game) {
-    synchronized (this.finishedGames) {
-      this.getFinishedGames().add(new Game(game));
-      this.setMostRecentGameIndex(this.getFinishedGames().size() - 1);
+  public void endGame(Game game) {
+    game.close();
+    this.metrics.gameEnded();
+    this.finishedGamesLock.lock();
+    try {
+      int finishedGameIndex =
+          this.finishedGames.append(encodeMessage(this.buildFinishedGameData(game)));
+      this.setMostRecentGameIndex(finishedGameIndex);
       this.sendFinishedGameToAdmins(this.getMostRecentGameIndex());
     }
+    catch (IOException exception) {
+      Log.error("Failed to store finished game", "game", game.getName(), "number",
+                game.getNumber(), "exception", exception);
+    }
+    finally {
+      this.finishedGamesLock.unlock();
+    }
   }
 
   /**
-   * Sends information about lobbies to the clients.
+   * Sends information about lobbies to the clients. Updates requested in quick succession are
+   * coalesced into one (see {@link LobbyUpdater}).
    */
   public void sendLobbyInfoToClients() {
-    StringBuilder lobbyInfoData = new StringBuilder("UPDATE LOBBY");
-    for (Lobby lobby : this.getLobbyGameSettingsMap().keySet()) {
-      String name = lobby.getName();
-      String playerAmount = "" + lobby.getPlayers().size();
-      String capacity = "" + lobby.getMaxPlayers();
-      lobbyInfoData.append(" " + name + "." + playerAmount + "." + capacity);
+    this.lobbyUpdater.requestUpdate();
+  }
+
+  /**
+   * Encodes a message the way it is sent on the wire.
+   *
+   * @param message the message to encode, without the line terminator.
+   * @return a read-only buffer holding the UTF-8 encoded message and line terminator.
+   */
+  public static ByteBuffer encodeMessage(String message) {
+    byte[] encodedMessage = (message + "\r\n").getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.wrap(encodedMessage).asReadOnlyBuffer();
+  }
+
+  /**
+   * Sends the same message to several clients. The message is encoded once and the encoded
+   * bytes are shared by every recipient.
+   *
+   * @param message    the message to send.
+   * @param recipients the clients to send the message to.
+   */
+  public void broadcast(String message, Iterable<ClientHandler> recipients) {
+    ByteBuffer encodedMessage = encodeMessage(message);
+    int recipientCount = 0;
+    for (ClientHandler client : recipients) {
+      client.send(encodedMessage);
+      recipientCount++;
     }
-    for (ClientHandler client : this.getClients()) {
-      client.send(lobbyInfoData.toString());
+    this.metrics.recordBroadcast(recipientCount);
+  }
+
+  /**
+   * Gets the game a client is playing.
+   *
+   * @param clientHandler the client to look up.
+   * @return the game of the client.
+   * @throws IllegalStateException if the client is not in a game.
+   */
+  private Game getGameOf(ClientHandler clientHandler) {
+    Player player = clientHandler.getPlayer();
+    if (player == null || player.getGame() == null) {
+      throw new IllegalStateException("The client is not in a game.");
     }
-    System.out.println("Sent updated lobby list to all clients" + "\r\n");
+    return player.getGame();
   }
 
   /**
-   * Catches a specified amount of shrimp.
+   * Catches a specified amount of shrimp. The catch is applied by the mailbox of the player's
+   * game, which acknowledges it with {@code CAUGHT_SUCCESSFULLY}.
    *
    * @param clientHandler the clientHandler for the player that catches shrimp.
    * @param shrimpCaught  the amount of shrimp to catch.
+   * @throws IllegalStateException if the player is not in a game.
    */
   public void catchShrimp(ClientHandler clientHandler, int shrimpCaught) {
-    Player player = clientHandler.getPlayer();
+    Game game = this.getGameOf(clientHandler);
+    game.getMailbox().execute(() -> {
+      this.applyCatch(clientHandler.getPlayer(), game, shrimpCaught);
+      clientHandler.sendEvent("CAUGHT_SUCCESSFULLY");
+    });
+  }
+
+  /**
+   * Applies a catch to a game, and finishes the round if every player has caught shrimp. Must
+   * only be run by the mailbox of the game.
+   *
+   * @param player       the player that catches shrimp.
+   * @param game         the game of the player.
+   * @param shrimpCaught the amount of shrimp to catch.
+   */
+  private void applyCatch(Player player, Game game, int shrimpCaught) {
+    if (game.isClosed()) {
+      return;
+    }
     player.setShrimpCaught(shrimpCaught);
-    System.out.println(player.getName() + " caught " + shrimpCaught + "kg of shrimp" + "\r\n");
-    Game game = player.getGame();
+    Log.debug("Player caught shrimp", "player", player.getName(), "kg", shrimpCaught);
     if (game.allPlayersCaughtShrimp()) {
-      game.storeCurrentRound();
-      this.sendRoundResultsToClients(game);
-      if (game.getGameSettings().getNumberOfRounds() + 1 == game.getCurrentRoundNum()) {
-        this.endGame(game);
+      this.finishRound(game);
+    }
+  }
+
+  /**
+   * Finishes the current round of a game, sends the results, and either ends the game or starts
+   * the deadline of the next round. Must only be run by the mailbox of the game.
+   *
+   * @param game the game whose round is finished.
+   */
+  private void finishRound(Game game) {
+    game.cancelRoundDeadline();
+    game.storeCurrentRound();
+    this.sendRoundResultsToClients(game);
+    if (game.getGameSettings().getNumberOfRounds() + 1 == game.getCurrentRoundNum()) {
+      this.endGame(game);
+    }
+    else {
+      this.scheduleRoundDeadline(game);
+    }
+  }
+
+  /**
+   * Starts the deadline of the current round of a game. When the round time and the grace
+   * period have passed, the round is ended by {@link #expireRound(Game, int)}. Rounds without a
+   * time limit get no deadline. Must only be run by the mailbox of the game.
+   *
+   * @param game the game whose round is started.
+   */
+  private void scheduleRoundDeadline(Game game) {
+    int roundNumber = game.getCurrentRoundNum();
+    int roundDuration = game.getGameSettings().getRoundDuration(roundNumber);
+    if (game.isClosed() || roundDuration <= 0) {
+      return;
+    }
+    long delayMillis = roundDuration * 1000L + this.settings.getRoundDeadlineGraceMillis();
+    game.setRoundDeadline(this.timer.schedule(
+        () -> game.getMailbox().execute(() -> this.expireRound(game, roundNumber)),
+        delayMillis, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Ends a round whose time has run out. Players who have not caught shrimp catch the minimum
+   * amount, and the round is finished as if they had. Must only be run by the mailbox of the
+   * game.
+   *
+   * @param game        the game whose round has run out of time.
+   * @param roundNumber the number of the round the deadline was set for.
+   */
+  private void expireRound(Game game, int roundNumber) {
+    if (game.isClosed() || game.getCurrentRoundNum() != roundNumber) {
+      return;
+    }
+    int defaultCatch = game.getGameSettings().getMinShrimpKilograms();
+    int playersTimedOut = 0;
+    for (Player player : game.getPlayers()) {
+      if (!player.hasCaughtShrimp()) {
+        player.setShrimpCaught(defaultCatch);
+        playersTimedOut++;
       }
     }
+    this.metrics.roundTimedOut();
+    Log.info("Round timed out", "game", game.getName(), "number", game.getNumber(), "round",
+             roundNumber, "players", playersTimedOut);
+    this.finishRound(game);
+  }
 
+  /**
+   * Removes a player that has gone for good from the game it was playing. Once every player of
+   * the game has left, the game is closed without being stored, and its deadline is cancelled so
+   * nothing keeps the game alive.
+   *
+   * @param player the player that left, or {@code null} if the client was never given one.
+   */
+  public void leaveGame(Player player) {
+    if (player == null || player.getGame() == null) {
+      return;
+    }
+    Game game = player.getGame();
+    game.getMailbox().execute(() -> {
+      if (!game.isClosed() && game.markPlayerLeft(player)) {
+        game.close();
+        this.metrics.gameEnded();
+        Log.info("Game abandoned", "game", game.getName(), "number", game.getNumber(), "round",
+                 game.getCurrentRoundNum());
+      }
+    });
   }
 
+  /**
+   * Sends a finished game to a client. The stored encoding of the game is sent as is.
+   *
+   * @param finishedGameIndex the index of the finished game.
+   * @param client the client to send the game to.
+   */
   public void sendFinishedGameToClient(int finishedGameIndex, ClientHandler client) {
-    String finishedGameData = this.getFinishedGameData(finishedGameIndex);
-    client.send(finishedGameData.toString());
-    System.out.println(
-        "Sent finished game data to " + client.getPlayer().getName() + "|" + client.getIpAddress()
-        + "\r\n");
+    client.send(this.finishedGames.read(finishedGameIndex));
+    Log.debug("Sent finished game", "index", finishedGameIndex, "player",
+              client.getPlayer().getName(), "ip", client.getIpAddress());
   }
 
+  /**
+   * Sends a finished game to every admin. The stored encoding of the game is shared by all the
+   * admins.
+   *
+   * @param finishedGameIndex the index of the finished game.
+   */
   public void sendFinishedGameToAdmins(int finishedGameIndex) {
+    List<ClientHandler> admins = new ArrayList<>();
     for (ClientHandler client : this.getClients()) {
       if (client.getPlayer().isAdmin()) {
-        this.sendFinishedGameToClient(finishedGameIndex, client);
+        admins.add(client);
+      }
+    }
+    if (!admins.isEmpty()) {
+      ByteBuffer encodedGame = this.finishedGames.read(finishedGameIndex);
+      for (ClientHandler admin : admins) {
+        admin.send(encodedGame);
       }
+      this.metrics.recordBroadcast(admins.size());
+      Log.debug("Sent finished game to admins", "index", finishedGameIndex, "admins",
+                admins.size());
     }
   }
 
-  public void sendAllFinishedGamesToClient(ClientHandler clientHandler) {
-    synchronized (this.finishedGames) {
-      for (Game finishedGame : this.finishedGames) {
-        this.sendFinishedGameToClient(this.finishedGames.indexOf(finishedGame), clientHandler);
+  /**
+   * Tells an admin how many finished games there are, so the admin can request them page by
+   * page with {@code REQUEST_FINISHED_GAMES}. Sends {@code FINISHED_GAMES_SUMMARY count}.
+   *
+   * @param clientHandler the admin to send the summary to.
+   */
+  public void sendFinishedGamesSummary(ClientHandler clientHandler) {
+    clientHandler.send("FINISHED_GAMES_SUMMARY " + this.finishedGames.size());
+  }
+
+  /**
+   * Sends a page of finished games to an admin.
+   * <p>
+   * The games are scanned in the order they finished, starting at the cursor. The page starts
+   * with {@code FINISHED_GAMES_PAGE nextCursor count}, followed by {@code count}
+   * {@code UPDATE FINISHED_GAME} messages. The next cursor is {@code -1} once the whole history
+   * has been scanned. At most {@value #FINISHED_GAMES_SCAN_LIMIT} games are scanned per page, so
+   * a page with a rare filter may hold fewer games than requested while the cursor is not yet
+   * {@code -1}.
+   *
+   * @param clientHandler the admin to send the page to.
+   * @param cursor the index of the first finished game to scan.
+   * @param pageSize the maximum number of games in the page, at most
+   *                 {@value #MAX_FINISHED_GAMES_PAGE_SIZE}.
+   * @param gameName the name of the games to include, or {@code null} to include every game.
+   * @param gameNumber the number of the games to include, or {@code -1} to include every number.
+   */
+  public void sendFinishedGamesPage(ClientHandler clientHandler, int cursor, int pageSize,
+                                    String gameName, int gameNumber) {
+    int finishedGameCount = this.finishedGames.size();
+    int limit = Math.max(1, Math.min(pageSize, MAX_FINISHED_GAMES_PAGE_SIZE));
+    ByteBuffer filter = this.buildFinishedGameFilter(gameName, gameNumber);
+    List<ByteBuffer> page = new ArrayList<>(limit);
+    int index = Math.max(0, cursor);
+    int scanEnd = (int) Math.min(finishedGameCount, (long) index + FINISHED_GAMES_SCAN_LIMIT);
+    while (index < scanEnd && page.size() < limit) {
+      ByteBuffer encodedGame = this.finishedGames.read(index);
+      if (filter == null || (encodedGame.remaining() >= filter.remaining()
+                             && encodedGame.slice(0, filter.remaining()).equals(filter))) {
+        page.add(encodedGame);
       }
+      index++;
+    }
+    int nextCursor = index < finishedGameCount ? index : -1;
+    clientHandler.send("FINISHED_GAMES_PAGE " + nextCursor + " " + page.size());
+    for (ByteBuffer encodedGame : page) {
+      clientHandler.send(encodedGame);
     }
+    Log.debug("Sent finished games page", "cursor", cursor, "games", page.size(), "player",
+              clientHandler.getPlayer().getName(), "ip", clientHandler.getIpAddress());
   }
 
+  /**
+   * Builds the start of the stored message every game matching a filter begins with.
+   *
+   * @param gameName the name of the games to match, or {@code null} to match every game.
+   * @param gameNumber the number of the games to match, or {@code -1} to match every number.
+   * @return the encoded message start, or {@code null} if every game matches.
+   */
+  private ByteBuffer buildFinishedGameFilter(String gameName, int gameNumber) {
+    if (gameName == null) {
+      return null;
+    }
+    StringBuilder filter = new StringBuilder("UPDATE FINISHED_GAME ").append(gameName).append(' ');
+    if (gameNumber >= 0) {
+      filter.append(gameNumber).append(' ');
+    }
+    return ByteBuffer.wrap(filter.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the {@code UPDATE FINISHED_GAME} message of a finished game. The game is read from the
+   * finished games store, so games from earlier sessions can be read too.
+   *
+   * @param finishedGameIndex the index of the finished game.
+   * @return the message describing the finished game.
+   */
   public String getFinishedGameData(int finishedGameIndex) {
-    StringBuilder finishedGameData = new StringBuilder("UPDATE FINISHED_GAME");
-    Game game = this.finishedGames.get(finishedGameIndex);
+    return this.finishedGames.readString(finishedGameIndex);
+  }
+
+  /**
+   * Builds the {@code UPDATE FINISHED_GAME} message of a game.
+   *
+   * @param game the finished game.
+   * @return the message describing the game.
+   */
+  private String buildFinishedGameData(Game game) {
+    StringBuilder finishedGameData = new StringBuilder(1024).append("UPDATE FINISHED_GAME");
     GameSettings gameSettings = game.getGameSettings();
-    String gameName = game.getName();
-    int gameNumber = game.getNumber();
     List<Player> players = game.getPlayers();
-    Player player1 = players.get(0);
-    Player player2 = players.get(1);
-    Player player3 = players.get(2);
-
-    finishedGameData.append(
-        " " + gameName + " " + gameNumber + " " + player1.getName() + "." + player2.getName() + "."
-        + player3.getName());
-    finishedGameData.append(" ");
-    Iterator<Round> roundIterator = game.getRounds().values().iterator();
+
+    finishedGameData.append(' ').append(game.getName()).append(' ').append(game.getNumber())
+        .append(' ');
+    for (int seat = 0; seat < players.size(); seat++) {
+      if (seat > 0) {
+        finishedGameData.append('.');
+      }
+      finishedGameData.append(players.get(seat).getName());
+    }
+    finishedGameData.append(' ');
+    Iterator<Round> roundIterator = game.getRounds().iterator();
     while (roundIterator.hasNext()) {
       Round round = roundIterator.next();
-      Map<Player, Integer> playerShrimpCaughtMap = round.getPlayerShrimpCaughtMap();
-      Map<Player, Integer> playerRoundProfitMap = round.getPlayerRoundProfitMap();
-      Map<Player, Integer> playerTotalProfitMap = round.getPlayerTotalProfitMap();
-
-      finishedGameData.append(round.getNumber() + "." + playerShrimpCaughtMap.get(player1) + "."
-                              + playerShrimpCaughtMap.get(player2) + "."
-                              + playerShrimpCaughtMap.get(player3) + "."
-                              + round.getTotalShrimpCaught() + "." + round.getShrimpPrice() + "."
-                              + (round.getShrimpPrice() - 5) + "." + playerRoundProfitMap.get(
-          player1) + "." + playerTotalProfitMap.get(player1) + "." + playerRoundProfitMap.get(
-          player2) + "." + playerTotalProfitMap.get(player2) + "." + playerRoundProfitMap.get(
-          player3) + "." + playerTotalProfitMap.get(player3));
+      int numberOfSeats = round.getNumberOfSeats();
+      finishedGameData.append(round.getNumber());
+      for (int seat = 0; seat < numberOfSeats; seat++) {
+        finishedGameData.append('.').append(round.getShrimpCaught(seat));
+      }
+      finishedGameData.append('.').append(round.getTotalShrimpCaught())
+          .append('.').append(round.getShrimpPrice())
+          .append('.').append(round.getShrimpPrice() - 5);
+      for (int seat = 0; seat < numberOfSeats; seat++) {
+        finishedGameData.append('.').append(round.getRoundProfit(seat))
+            .append('.').append(round.getTotalProfit(seat));
+      }
       if (roundIterator.hasNext()) {
-        finishedGameData.append(",");
+        finishedGameData.append(',');
       }
     }
-    finishedGameData.append(
-        " " + gameSettings.getNumberOfPlayers() + "." + gameSettings.getNumberOfRounds() + "."
-        + gameSettings.getRoundTime() + "." + gameSettings.getCommunicationRounds() + "."
-        + gameSettings.getCommunicationRoundTime() + "." + gameSettings.getMinShrimpKilograms()
-        + "." + gameSettings.getMaxShrimpKilograms());
-    finishedGameData.append(" ");
-    if (game.getMessages().size() != 0) {
-      for (String message : game.getMessages()) {
-        finishedGameData.append(message + "◊");
+    finishedGameData.append(' ').append(gameSettings.getNumberOfPlayers())
+        .append('.').append(gameSettings.getNumberOfRounds())
+        .append('.').append(gameSettings.getRoundTime())
+        .append('.').append(gameSettings.getCommunicationRounds())
+        .append('.').append(gameSettings.getCommunicationRoundTime())
+        .append('.').append(gameSettings.getMinShrimpKilograms())
+        .append('.').append(gameSettings.getMaxShrimpKilograms());
+    finishedGameData.append(' ');
+    List<String> messages = game.getMessages();
+    if (!messages.isEmpty()) {
+      for (String message : messages) {
+        finishedGameData.append(message).append('◊');
       }
     }
     else {
@@ -382,61 +772,75 @@ public class Server {
    */
   public void sendRoundResultsToClients(Game game) {
     int roundNum = game.getCurrentRoundNum() - 1;
-    Round round = game.getRounds().get(roundNum);
+    Round round = game.getRound(roundNum);
+    List<Player> players = game.getPlayers();
 
-    for (Player player : game.getPlayers()) {
+    for (int seat = 0; seat < players.size(); seat++) {
+      Player player = players.get(seat);
       ClientHandler client = player.getClientHandler();
       StringBuilder roundResults = new StringBuilder("UPDATE ROUND_FINISHED");
-      List<Player> otherPlayers = new ArrayList<>(game.getPlayers());
-      otherPlayers.remove(player);
       roundResults.append(" " + round.getShrimpPrice());
-      roundResults.append(
-          " " + player.getName() + " " + round.getPlayerShrimpCaughtMap().get(player) + " "
-          + round.getPlayerRoundProfitMap().get(player));
-      roundResults.append(
-          " " + otherPlayers.get(0).getName() + " " + round.getPlayerShrimpCaughtMap()
-                                                           .get(otherPlayers.get(0)) + " "
-          + round.getPlayerRoundProfitMap().get(otherPlayers.get(0)));
-      roundResults.append(
-          " " + otherPlayers.get(1).getName() + " " + round.getPlayerShrimpCaughtMap()
-                                                           .get(otherPlayers.get(1)) + " "
-          + round.getPlayerRoundProfitMap().get(otherPlayers.get(1)));
-      client.send(roundResults.toString());
+      roundResults.append(" " + player.getName() + " " + round.getShrimpCaught(seat) + " "
+                          + round.getRoundProfit(seat));
+      for (int otherSeat = 0; otherSeat < players.size(); otherSeat++) {
+        if (otherSeat != seat) {
+          roundResults.append(" " + players.get(otherSeat).getName() + " "
+                              + round.getShrimpCaught(otherSeat) + " "
+                              + round.getRoundProfit(otherSeat));
+        }
+      }
+      client.sendEvent(roundResults.toString());
     }
-    System.out.println("Round " + roundNum + " of " + game.getName() + " has ended" + "\r\n");
+    Log.info("Round ended", "game", game.getName(), "round", roundNum);
   }
 
   /**
-   * Adds a specified message to the chat.
+   * Adds a specified message to the chat. The message is added by the mailbox of the player's
+   * game, which acknowledges it with {@code MESSAGE_RECEIVED}.
    *
    * @param clientHandler the clientHandler for the player that sends the message.
    * @param message       the message to add.
+   * @throws IllegalStateException if the player is not in a game.
    */
   public void addMessageToChat(ClientHandler clientHandler, String message) {
-    Player player = clientHandler.getPlayer();
-    Game game = player.getGame();
+    Game game = this.getGameOf(clientHandler);
+    game.getMailbox().execute(() -> {
+      this.applyChatMessage(clientHandler.getPlayer(), game, message);
+      clientHandler.sendEvent("MESSAGE_RECEIVED");
+    });
+  }
+
+  /**
+   * Sends a chat message to the players of a game and stores it. If the chat of the game is
+   * full, its oldest message is moved to the chat archive. Must only be run by the mailbox of the
+   * game.
+   *
+   * @param player  the player that sends the message.
+   * @param game    the game of the player.
+   * @param message the message to add.
+   */
+  private void applyChatMessage(Player player, Game game, String message) {
+    String sentAt = this.chatClock.now();
+    ByteBuffer encodedMessage =
+        encodeMessage("UPDATE MESSAGE_SENT " + player.getName() + " " + message + " " + sentAt);
     for (Player gamePlayer : game.getPlayers()) {
-      ClientHandler client = gamePlayer.getClientHandler();
-      StringBuilder chatMessage = new StringBuilder("UPDATE MESSAGE_SENT");
-      Date now = new Date();
-      Calendar calendar = Calendar.getInstance();
-      calendar.setTime(now);
-      calendar.add(Calendar.HOUR_OF_DAY, 2);
-      SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
-      String formattedTime = dateFormat.format(calendar.getTime());
-      chatMessage.append(" " + player.getName() + " " + message + " " + formattedTime);
-      client.send(chatMessage.toString());
-    }
-    Date now = new Date();
-    Calendar calendar = Calendar.getInstance();
-    calendar.setTime(now);
-    calendar.add(Calendar.HOUR_OF_DAY, 2);
-    SimpleDateFormat dateFormat = new SimpleDateFormat("HH:mm:ss");
-    String formattedTime = dateFormat.format(calendar.getTime());
-    game.getMessages().add(player.getName() + "☐" + message + "☐" + formattedTime);
-    System.out.println(
-        player.getName() + " sent (" + message.replace("⁞", " ") + ") to the chat at "
-        + formattedTime + "\r\n");
+      gamePlayer.getClientHandler().sendEvent(encodedMessage);
+    }
+    this.metrics.recordBroadcast(game.getPlayers().size());
+    String evictedMessage = game.addMessage(player.getName() + "☐" + message + "☐" + sentAt);
+    if (evictedMessage != null) {
+      try {
+        this.chatArchive.append(game.getName(), game.getNumber(), evictedMessage);
+      }
+      catch (IOException exception) {
+        Log.warn("Failed to archive chat message", "game", game.getName(), "number",
+                 game.getNumber(), "exception", exception);
+      }
+    }
+    if (Log.isEnabled(Level.DEBUG)) {
+      Log.debug("Player sent chat message", "player", player.getName(), "time", sentAt,
+                "message", message.replace("⁞", " "));
+    }
   }
 }
 
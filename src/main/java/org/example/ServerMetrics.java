@@ -0,0 +1,242 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.example.metrics.Counter;
+import org.example.metrics.Histogram;
+import org.example.metrics.MetricsRegistry;
+import org.example.network.OutboundQueue;
+
+/**
+ * The ServerMetrics class holds the metrics the server records about itself.
+ * <p>
+ * Every command has a counter, a failure counter and a latency histogram, looked up by the
+ * command's ordinal so recording a command does not touch a map. The latency covers the work
+ * done on the connection's thread; game events queued to a game's mailbox are not included.
+ * The number of clients, lobbies, games and queued messages are gauges read when the metrics
+ * are scraped.
+ */
+public class ServerMetrics {
+  private static final long[] LATENCY_BOUNDS_NANOS = {
+      10_000, 25_000, 50_000, 100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000,
+      10_000_000, 25_000_000, 50_000_000, 100_000_000, 250_000_000, 1_000_000_000
+  };
+  private static final long[] FAN_OUT_BOUNDS = {
+      1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+  };
+  private final MetricsRegistry registry;
+  private final Counter[] commands;
+  private final Counter[] commandFailures;
+  private final Histogram[] commandLatencies;
+  private final Histogram broadcastFanOut;
+  private final AtomicInteger activeGames;
+  private final Counter roundTimeouts;
+  private final Counter connectionsReaped;
+  private final Counter outboundOverBudget;
+  private final Counter lobbyUpdatesDropped;
+  private final Counter slowConsumersDisconnected;
+  private final Counter sessionsResumed;
+  private final Counter sessionsExpired;
+
+  /**
+   * Creates a new instance of {@code ServerMetrics} and registers the metrics of a server.
+   *
+   * @param server the server to record metrics for
+   */
+  public ServerMetrics(Server server) {
+    this.registry = new MetricsRegistry();
+    Command[] commandTypes = Command.values();
+    this.commands = new Counter[commandTypes.length];
+    this.commandFailures = new Counter[commandTypes.length];
+    this.commandLatencies = new Histogram[commandTypes.length];
+    for (Command command : commandTypes) {
+      this.commands[command.ordinal()] = this.registry.counter(
+          "shrimp_commands_total", "Commands received from clients.", "command", command.name());
+    }
+    for (Command command : commandTypes) {
+      this.commandFailures[command.ordinal()] = this.registry.counter(
+          "shrimp_command_failures_total", "Commands that failed and closed the connection.",
+          "command", command.name());
+    }
+    for (Command command : commandTypes) {
+      this.commandLatencies[command.ordinal()] = this.registry.histogram(
+          "shrimp_command_duration_seconds", "Time spent handling a command.",
+          LATENCY_BOUNDS_NANOS, 1e-9, "command", command.name());
+    }
+    this.broadcastFanOut = this.registry.histogram(
+        "shrimp_broadcast_recipients", "Number of clients a broadcast message was sent to.",
+        FAN_OUT_BOUNDS, 1);
+    this.activeGames = new AtomicInteger();
+    this.roundTimeouts = this.registry.counter(
+        "shrimp_round_timeouts_total", "Rounds ended by their deadline instead of the last catch.");
+    this.connectionsReaped = this.registry.counter(
+        "shrimp_connections_reaped_total", "Connections closed for being idle too long.");
+    this.outboundOverBudget = this.registry.counter(
+        "shrimp_outbound_enforcements_total", "Actions taken against clients that do not keep up "
+        + "with their outbound messages.", "action", "over_budget");
+    this.lobbyUpdatesDropped = this.registry.counter(
+        "shrimp_outbound_enforcements_total", "Actions taken against clients that do not keep up "
+        + "with their outbound messages.", "action", "lobby_update_dropped");
+    this.slowConsumersDisconnected = this.registry.counter(
+        "shrimp_outbound_enforcements_total", "Actions taken against clients that do not keep up "
+        + "with their outbound messages.", "action", "disconnected");
+    this.sessionsResumed = this.registry.counter(
+        "shrimp_sessions_resumed_total", "Sessions resumed by a client on a new connection.");
+    this.sessionsExpired = this.registry.counter(
+        "shrimp_sessions_expired_total", "Sessions ended because their client did not resume "
+        + "them in time.");
+
+    this.registry.gauge("shrimp_connected_clients", "Clients that have been given a username.",
+                        () -> server.getClients().size());
+    this.registry.gauge("shrimp_sessions",
+                        "Sessions of connected clients and of clients that may resume them.",
+                        () -> server.getSessions().size());
+    this.registry.gauge("shrimp_open_lobbies", "Lobbies waiting for players.",
+                        () -> server.getLobbyCollection().size());
+    this.registry.gauge("shrimp_cluster_remote_lobbies", "Lobbies open on other cluster nodes.",
+                        () -> server.getCluster().getRemoteLobbyCount());
+    this.registry.gauge("shrimp_active_games", "Games being played.", this.activeGames::get);
+    this.registry.gauge("shrimp_timer_pending_tasks",
+                        "Round deadlines and idle checks waiting on the server timer.",
+                        () -> server.getTimer().size());
+    this.registry.gauge("shrimp_finished_games", "Finished games in the history.",
+                        () -> server.getFinishedGames().size());
+    this.registry.gauge("shrimp_outbound_queued_messages",
+                        "Messages waiting to be written, summed over all clients.",
+                        () -> sumOutbound(server, false));
+    this.registry.gauge("shrimp_outbound_queued_bytes",
+                        "Bytes waiting to be written, summed over all clients.",
+                        () -> sumOutbound(server, true));
+    this.registry.gauge("shrimp_outbound_queue_depth_max",
+                        "Messages waiting to be written to the most backed up client.",
+                        () -> maxOutboundDepth(server));
+  }
+
+  /**
+   * Gets the registry holding the metrics.
+   *
+   * @return the metrics registry
+   */
+  public MetricsRegistry getRegistry() {
+    return this.registry;
+  }
+
+  /**
+   * Records a handled command.
+   *
+   * @param command       the command
+   * @param durationNanos the time (in nanoseconds) it took to handle the command
+   * @param failed        {@code true} if handling the command failed
+   */
+  public void recordCommand(Command command, long durationNanos, boolean failed) {
+    int index = command.ordinal();
+    this.commands[index].increment();
+    this.commandLatencies[index].observe(durationNanos);
+    if (failed) {
+      this.commandFailures[index].increment();
+    }
+  }
+
+  /**
+   * Records the number of recipients of a broadcast message.
+   *
+   * @param recipients the number of clients the message was sent to
+   */
+  public void recordBroadcast(int recipients) {
+    this.broadcastFanOut.observe(recipients);
+  }
+
+  /**
+   * Records that games have started.
+   *
+   * @param games the number of games started
+   */
+  public void gamesStarted(int games) {
+    this.activeGames.addAndGet(games);
+  }
+
+  /**
+   * Records that a game has ended.
+   */
+  public void gameEnded() {
+    this.activeGames.decrementAndGet();
+  }
+
+  /**
+   * Records that a round was ended by its deadline.
+   */
+  public void roundTimedOut() {
+    this.roundTimeouts.increment();
+  }
+
+  /**
+   * Records that an idle connection was closed.
+   */
+  public void connectionReaped() {
+    this.connectionsReaped.increment();
+  }
+
+  /**
+   * Records that a client went over its outbound budget and was given a grace period.
+   */
+  public void outboundOverBudget() {
+    this.outboundOverBudget.increment();
+  }
+
+  /**
+   * Records that a lobby update was dropped for a client over its outbound budget.
+   */
+  public void lobbyUpdateDropped() {
+    this.lobbyUpdatesDropped.increment();
+  }
+
+  /**
+   * Records that a client was disconnected for staying over its outbound budget.
+   */
+  public void slowConsumerDisconnected() {
+    this.slowConsumersDisconnected.increment();
+  }
+
+  /**
+   * Records that a client resumed its session.
+   */
+  public void sessionResumed() {
+    this.sessionsResumed.increment();
+  }
+
+  /**
+   * Records that a session expired without being resumed.
+   */
+  public void sessionExpired() {
+    this.sessionsExpired.increment();
+  }
+
+  /**
+   * Sums the outbound queues of all clients.
+   *
+   * @param server the server whose clients to sum over
+   * @param bytes  {@code true} to sum queued bytes, or {@code false} to sum queued messages
+   * @return the sum
+   */
+  private static double sumOutbound(Server server, boolean bytes) {
+    long sum = 0;
+    for (ClientHandler client : server.getClients()) {
+      OutboundQueue queue = client.getOutboundQueue();
+      sum += bytes ? queue.getQueuedBytes() : queue.size();
+    }
+    return sum;
+  }
+
+  /**
+   * Finds the deepest outbound queue of all clients.
+   *
+   * @param server the server whose clients to look at
+   * @return the number of messages in the deepest queue
+   */
+  private static double maxOutboundDepth(Server server) {
+    int max = 0;
+    for (ClientHandler client : server.getClients()) {
+      max = Math.max(max, client.getOutboundQueue().size());
+    }
+    return max;
+  }
+}
@@ -0,0 +1,702 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import org.example.cluster.ClusterMember;
+import org.example.log.Level;
+
+/**
+ * The ServerSettings class represents the startup settings of the server application.
+ * <p>
+ * The settings are read from command line arguments in the format {@code --name=value}, for
+ * example {@code --mode=nio --event-loop-threads=4}.
+ */
+public class ServerSettings {
+  private ConnectionMode connectionMode;
+  private int eventLoopThreads;
+  private long lobbyUpdateWindowMillis;
+  private Path dataDirectory;
+  private int finishedGameCacheSize;
+  private Level logLevel;
+  private String metricsHost;
+  private int metricsPort;
+  private ZoneId chatTimeZone;
+  private int chatHistorySize;
+  private int chatMessagesPerMinute;
+  private int chatBurst;
+  private long roundDeadlineGraceMillis;
+  private long heartbeatIntervalMillis;
+  private long idleTimeoutMillis;
+  private long outboundBudgetBytes;
+  private long slowConsumerGraceMillis;
+  private int port;
+  private String nodeId;
+  private List<ClusterMember> clusterNodes;
+  private String clusterSecret;
+  private long sessionTimeoutMillis;
+  private int sessionReplaySize;
+
+  /**
+   * Creates a new instance of {@code ServerSettings} with the default settings.
+   */
+  public ServerSettings() {
+    this.connectionMode = ConnectionMode.BLOCKING;
+    this.eventLoopThreads = Runtime.getRuntime().availableProcessors();
+    this.lobbyUpdateWindowMillis = 50;
+    this.dataDirectory = Path.of("data");
+    this.finishedGameCacheSize = 64;
+    this.logLevel = Level.INFO;
+    this.metricsHost = "127.0.0.1";
+    this.metricsPort = 9100;
+    this.chatTimeZone = ZoneId.of("Europe/Oslo");
+    this.chatHistorySize = 200;
+    this.chatMessagesPerMinute = 30;
+    this.chatBurst = 5;
+    this.roundDeadlineGraceMillis = 2000;
+    this.heartbeatIntervalMillis = 0;
+    this.idleTimeoutMillis = 0;
+    this.outboundBudgetBytes = 4 * 1024 * 1024;
+    this.slowConsumerGraceMillis = 10000;
+    this.port = 8080;
+    this.nodeId = "";
+    this.clusterNodes = List.of();
+    this.clusterSecret = "";
+    this.sessionTimeoutMillis = 120000;
+    this.sessionReplaySize = 256;
+  }
+
+  /**
+   * Creates a new instance of {@code ServerSettings} from command line arguments.
+   *
+   * @param args the command line arguments in the format {@code --name=value}.
+   * @return the settings described by the arguments.
+   * @throws IllegalArgumentException if an argument is unknown or has an invalid value.
+   */
+  public static ServerSettings fromArguments(String[] args) {
+    ServerSettings settings = new ServerSettings();
+    for (String argument : args) {
+      if (!argument.startsWith("--") || !argument.contains("=")) {
+        throw new IllegalArgumentException("Invalid argument: " + argument);
+      }
+      String name = argument.substring(2, argument.indexOf('='));
+      String value = argument.substring(argument.indexOf('=') + 1);
+      settings.apply(name, value);
+    }
+    return settings;
+  }
+
+  /**
+   * Applies a single named setting.
+   *
+   * @param name  the name of the setting.
+   * @param value the value of the setting.
+   * @throws IllegalArgumentException if the name is unknown or the value is invalid.
+   */
+  private void apply(String name, String value) {
+    switch (name) {
+      case "mode":
+        this.setConnectionMode(ConnectionMode.valueOf(value.toUpperCase()));
+        break;
+
+      case "event-loop-threads":
+        this.setEventLoopThreads(Integer.parseInt(value));
+        break;
+
+      case "lobby-update-window-ms":
+        this.setLobbyUpdateWindowMillis(Long.parseLong(value));
+        break;
+
+      case "data-dir":
+        this.setDataDirectory(Path.of(value));
+        break;
+
+      case "finished-game-cache-size":
+        this.setFinishedGameCacheSize(Integer.parseInt(value));
+        break;
+
+      case "log-level":
+        this.setLogLevel(Level.valueOf(value.toUpperCase()));
+        break;
+
+      case "metrics-host":
+        this.setMetricsHost(value);
+        break;
+
+      case "metrics-port":
+        this.setMetricsPort(Integer.parseInt(value));
+        break;
+
+      case "chat-time-zone":
+        try {
+          this.setChatTimeZone(ZoneId.of(value));
+        }
+        catch (DateTimeException exception) {
+          throw new IllegalArgumentException("Invalid time zone: " + value);
+        }
+        break;
+
+      case "chat-history-size":
+        this.setChatHistorySize(Integer.parseInt(value));
+        break;
+
+      case "chat-messages-per-minute":
+        this.setChatMessagesPerMinute(Integer.parseInt(value));
+        break;
+
+      case "chat-burst":
+        this.setChatBurst(Integer.parseInt(value));
+        break;
+
+      case "round-deadline-grace-ms":
+        this.setRoundDeadlineGraceMillis(Long.parseLong(value));
+        break;
+
+      case "heartbeat-interval-ms":
+        this.setHeartbeatIntervalMillis(Long.parseLong(value));
+        break;
+
+      case "idle-timeout-ms":
+        this.setIdleTimeoutMillis(Long.parseLong(value));
+        break;
+
+      case "outbound-budget-bytes":
+        this.setOutboundBudgetBytes(Long.parseLong(value));
+        break;
+
+      case "slow-consumer-grace-ms":
+        this.setSlowConsumerGraceMillis(Long.parseLong(value));
+        break;
+
+      case "port":
+        this.setPort(Integer.parseInt(value));
+        break;
+
+      case "node-id":
+        this.setNodeId(value);
+        break;
+
+      case "cluster-nodes":
+        List<ClusterMember> clusterNodes = new ArrayList<>();
+        for (String clusterNode : value.split(",")) {
+          clusterNodes.add(ClusterMember.parse(clusterNode.trim()));
+        }
+        this.setClusterNodes(clusterNodes);
+        break;
+
+      case "cluster-secret":
+        this.setClusterSecret(value);
+        break;
+
+      case "session-timeout-ms":
+        this.setSessionTimeoutMillis(Long.parseLong(value));
+        break;
+
+      case "session-replay-size":
+        this.setSessionReplaySize(Integer.parseInt(value));
+        break;
+
+      default:
+        throw new IllegalArgumentException("Unknown setting: " + name);
+    }
+  }
+
+  /**
+   * Gets the networking mode used for client connections.
+   *
+   * @return the connection mode.
+   */
+  public ConnectionMode getConnectionMode() {
+    return this.connectionMode;
+  }
+
+  /**
+   * Sets the networking mode used for client connections.
+   *
+   * @param connectionMode the connection mode.
+   */
+  public void setConnectionMode(ConnectionMode connectionMode) {
+    this.connectionMode = connectionMode;
+  }
+
+  /**
+   * Gets the number of event loop threads used in {@link ConnectionMode#NIO} mode.
+   *
+   * @return the number of event loop threads.
+   */
+  public int getEventLoopThreads() {
+    return this.eventLoopThreads;
+  }
+
+  /**
+   * Sets the number of event loop threads used in {@link ConnectionMode#NIO} mode.
+   *
+   * @param eventLoopThreads the number of event loop threads.
+   * @throws IllegalArgumentException if the number of threads is less than one.
+   */
+  public void setEventLoopThreads(int eventLoopThreads) {
+    if (eventLoopThreads < 1) {
+      throw new IllegalArgumentException("There must be at least one event loop thread.");
+    }
+    this.eventLoopThreads = eventLoopThreads;
+  }
+
+  /**
+   * Gets the time lobby list updates are coalesced over.
+   *
+   * @return the coalescing window (in milliseconds), or {@code 0} if updates are sent
+   *         immediately.
+   */
+  public long getLobbyUpdateWindowMillis() {
+    return this.lobbyUpdateWindowMillis;
+  }
+
+  /**
+   * Sets the time lobby list updates are coalesced over.
+   *
+   * @param lobbyUpdateWindowMillis the coalescing window (in milliseconds), or {@code 0} to send
+   *                                updates immediately.
+   * @throws IllegalArgumentException if the window is negative.
+   */
+  public void setLobbyUpdateWindowMillis(long lobbyUpdateWindowMillis) {
+    if (lobbyUpdateWindowMillis < 0) {
+      throw new IllegalArgumentException("The lobby update window cannot be negative.");
+    }
+    this.lobbyUpdateWindowMillis = lobbyUpdateWindowMillis;
+  }
+
+  /**
+   * Gets the directory the server stores its data in.
+   *
+   * @return the data directory.
+   */
+  public Path getDataDirectory() {
+    return this.dataDirectory;
+  }
+
+  /**
+   * Sets the directory the server stores its data in.
+   *
+   * @param dataDirectory the data directory.
+   */
+  public void setDataDirectory(Path dataDirectory) {
+    this.dataDirectory = dataDirectory;
+  }
+
+  /**
+   * Gets the maximum number of finished games kept on the heap.
+   *
+   * @return the maximum number of cached finished games.
+   */
+  public int getFinishedGameCacheSize() {
+    return this.finishedGameCacheSize;
+  }
+
+  /**
+   * Sets the maximum number of finished games kept on the heap.
+   *
+   * @param finishedGameCacheSize the maximum number of cached finished games.
+   * @throws IllegalArgumentException if the size is negative.
+   */
+  public void setFinishedGameCacheSize(int finishedGameCacheSize) {
+    if (finishedGameCacheSize < 0) {
+      throw new IllegalArgumentException("The finished game cache size cannot be negative.");
+    }
+    this.finishedGameCacheSize = finishedGameCacheSize;
+  }
+
+  /**
+   * Gets the lowest level that is logged.
+   *
+   * @return the log level.
+   */
+  public Level getLogLevel() {
+    return this.logLevel;
+  }
+
+  /**
+   * Sets the lowest level that is logged.
+   *
+   * @param logLevel the log level.
+   */
+  public void setLogLevel(Level logLevel) {
+    this.logLevel = logLevel;
+  }
+
+  /**
+   * Gets the host name or address the metrics are served on.
+   *
+   * @return the metrics host.
+   */
+  public String getMetricsHost() {
+    return this.metricsHost;
+  }
+
+  /**
+   * Sets the host name or address the metrics are served on.
+   *
+   * @param metricsHost the metrics host.
+   */
+  public void setMetricsHost(String metricsHost) {
+    this.metricsHost = metricsHost;
+  }
+
+  /**
+   * Gets the port the metrics are served on.
+   *
+   * @return the metrics port, or {@code 0} if the metrics are not served.
+   */
+  public int getMetricsPort() {
+    return this.metricsPort;
+  }
+
+  /**
+   * Sets the port the metrics are served on.
+   *
+   * @param metricsPort the metrics port, or {@code 0} to not serve the metrics.
+   * @throws IllegalArgumentException if the port is not between 0 and 65535.
+   */
+  public void setMetricsPort(int metricsPort) {
+    if (metricsPort < 0 || metricsPort > 65535) {
+      throw new IllegalArgumentException("The metrics port must be between 0 and 65535.");
+    }
+    this.metricsPort = metricsPort;
+  }
+
+  /**
+   * Gets the time zone chat messages are stamped in.
+   *
+   * @return the chat time zone.
+   */
+  public ZoneId getChatTimeZone() {
+    return this.chatTimeZone;
+  }
+
+  /**
+   * Sets the time zone chat messages are stamped in.
+   *
+   * @param chatTimeZone the chat time zone.
+   */
+  public void setChatTimeZone(ZoneId chatTimeZone) {
+    this.chatTimeZone = chatTimeZone;
+  }
+
+  /**
+   * Gets the number of chat messages each game keeps in memory.
+   *
+   * @return the chat history size.
+   */
+  public int getChatHistorySize() {
+    return this.chatHistorySize;
+  }
+
+  /**
+   * Sets the number of chat messages each game keeps in memory. Older messages are moved to the
+   * chat archive on disk.
+   *
+   * @param chatHistorySize the chat history size.
+   * @throws IllegalArgumentException if the size is not positive.
+   */
+  public void setChatHistorySize(int chatHistorySize) {
+    if (chatHistorySize <= 0) {
+      throw new IllegalArgumentException("The chat history size must be positive.");
+    }
+    this.chatHistorySize = chatHistorySize;
+  }
+
+  /**
+   * Gets the number of chat messages a client may send per minute after a burst.
+   *
+   * @return the chat rate limit.
+   */
+  public int getChatMessagesPerMinute() {
+    return this.chatMessagesPerMinute;
+  }
+
+  /**
+   * Sets the number of chat messages a client may send per minute after a burst.
+   *
+   * @param chatMessagesPerMinute the chat rate limit.
+   * @throws IllegalArgumentException if the rate is not positive.
+   */
+  public void setChatMessagesPerMinute(int chatMessagesPerMinute) {
+    if (chatMessagesPerMinute <= 0) {
+      throw new IllegalArgumentException("The chat rate must be positive.");
+    }
+    this.chatMessagesPerMinute = chatMessagesPerMinute;
+  }
+
+  /**
+   * Gets the number of chat messages a client may send at once.
+   *
+   * @return the chat burst.
+   */
+  public int getChatBurst() {
+    return this.chatBurst;
+  }
+
+  /**
+   * Sets the number of chat messages a client may send at once.
+   *
+   * @param chatBurst the chat burst.
+   * @throws IllegalArgumentException if the burst is not positive.
+   */
+  public void setChatBurst(int chatBurst) {
+    if (chatBurst <= 0) {
+      throw new IllegalArgumentException("The chat burst must be positive.");
+    }
+    this.chatBurst = chatBurst;
+  }
+
+  /**
+   * Gets the extra time the server waits after the round time has run out before it ends the
+   * round, to allow for network delays.
+   *
+   * @return the grace period (in milliseconds).
+   */
+  public long getRoundDeadlineGraceMillis() {
+    return this.roundDeadlineGraceMillis;
+  }
+
+  /**
+   * Sets the extra time the server waits after the round time has run out before it ends the
+   * round.
+   *
+   * @param roundDeadlineGraceMillis the grace period (in milliseconds).
+   * @throws IllegalArgumentException if the grace period is negative.
+   */
+  public void setRoundDeadlineGraceMillis(long roundDeadlineGraceMillis) {
+    if (roundDeadlineGraceMillis < 0) {
+      throw new IllegalArgumentException("The round deadline grace period cannot be negative.");
+    }
+    this.roundDeadlineGraceMillis = roundDeadlineGraceMillis;
+  }
+
+  /**
+   * Gets the time a client may stay silent before the server sends it a {@code PING}.
+   *
+   * @return the heartbeat interval (in milliseconds), or {@code 0} if the server never pings.
+   */
+  public long getHeartbeatIntervalMillis() {
+    return this.heartbeatIntervalMillis;
+  }
+
+  /**
+   * Sets the time a client may stay silent before the server sends it a {@code PING}.
+   *
+   * @param heartbeatIntervalMillis the heartbeat interval (in milliseconds), or {@code 0} to
+   *                                never ping.
+   * @throws IllegalArgumentException if the interval is negative.
+   */
+  public void setHeartbeatIntervalMillis(long heartbeatIntervalMillis) {
+    if (heartbeatIntervalMillis < 0) {
+      throw new IllegalArgumentException("The heartbeat interval cannot be negative.");
+    }
+    this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+  }
+
+  /**
+   * Gets the time a client may stay silent before its connection is closed.
+   *
+   * @return the idle timeout (in milliseconds), or {@code 0} if idle connections are kept open.
+   */
+  public long getIdleTimeoutMillis() {
+    return this.idleTimeoutMillis;
+  }
+
+  /**
+   * Sets the time a client may stay silent before its connection is closed.
+   *
+   * @param idleTimeoutMillis the idle timeout (in milliseconds), or {@code 0} to keep idle
+   *                          connections open.
+   * @throws IllegalArgumentException if the timeout is negative.
+   */
+  public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+    if (idleTimeoutMillis < 0) {
+      throw new IllegalArgumentException("The idle timeout cannot be negative.");
+    }
+    this.idleTimeoutMillis = idleTimeoutMillis;
+  }
+
+  /**
+   * Gets the number of bytes that may be waiting to be written to a client before it is
+   * treated as a slow consumer.
+   *
+   * @return the outbound budget (in bytes), or {@code 0} if there is no budget.
+   */
+  public long getOutboundBudgetBytes() {
+    return this.outboundBudgetBytes;
+  }
+
+  /**
+   * Sets the number of bytes that may be waiting to be written to a client before it is
+   * treated as a slow consumer.
+   *
+   * @param outboundBudgetBytes the outbound budget (in bytes), or {@code 0} for no budget.
+   * @throws IllegalArgumentException if the budget is negative.
+   */
+  public void setOutboundBudgetBytes(long outboundBudgetBytes) {
+    if (outboundBudgetBytes < 0) {
+      throw new IllegalArgumentException("The outbound budget cannot be negative.");
+    }
+    this.outboundBudgetBytes = outboundBudgetBytes;
+  }
+
+  /**
+   * Gets the time a client over its outbound budget has to catch up before it is
+   * disconnected.
+   *
+   * @return the grace period (in milliseconds).
+   */
+  public long getSlowConsumerGraceMillis() {
+    return this.slowConsumerGraceMillis;
+  }
+
+  /**
+   * Sets the time a client over its outbound budget has to catch up before it is
+   * disconnected.
+   *
+   * @param slowConsumerGraceMillis the grace period (in milliseconds).
+   * @throws IllegalArgumentException if the grace period is negative.
+   */
+  public void setSlowConsumerGraceMillis(long slowConsumerGraceMillis) {
+    if (slowConsumerGraceMillis < 0) {
+      throw new IllegalArgumentException("The slow consumer grace period cannot be negative.");
+    }
+    this.slowConsumerGraceMillis = slowConsumerGraceMillis;
+  }
+
+  /**
+   * Gets the port the server accepts client connections on.
+   *
+   * @return the port.
+   */
+  public int getPort() {
+    return this.port;
+  }
+
+  /**
+   * Sets the port the server accepts client connections on.
+   *
+   * @param port the port.
+   * @throws IllegalArgumentException if the port is out of range.
+   */
+  public void setPort(int port) {
+    if (port < 0 || port > 65535) {
+      throw new IllegalArgumentException("The port must be between 0 and 65535.");
+    }
+    this.port = port;
+  }
+
+  /**
+   * Gets the id of this server in its cluster.
+   *
+   * @return the node id, or an empty string if the server is not in a cluster.
+   */
+  public String getNodeId() {
+    return this.nodeId;
+  }
+
+  /**
+   * Sets the id of this server in its cluster.
+   *
+   * @param nodeId the node id, which must be one of the cluster nodes.
+   * @throws IllegalArgumentException if the node id is blank or contains whitespace.
+   */
+  public void setNodeId(String nodeId) {
+    if (nodeId.isBlank() || nodeId.chars().anyMatch(Character::isWhitespace)) {
+      throw new IllegalArgumentException("The node id cannot be blank or contain whitespace.");
+    }
+    this.nodeId = nodeId;
+  }
+
+  /**
+   * Gets the nodes of the cluster the server is in.
+   *
+   * @return the cluster nodes, including this server, or an empty list if the server runs on
+   *         its own.
+   */
+  public List<ClusterMember> getClusterNodes() {
+    return this.clusterNodes;
+  }
+
+  /**
+   * Sets the nodes of the cluster the server is in. Every node must be given the same list.
+   *
+   * @param clusterNodes the cluster nodes, including this server.
+   */
+  public void setClusterNodes(List<ClusterMember> clusterNodes) {
+    this.clusterNodes = List.copyOf(clusterNodes);
+  }
+
+  /**
+   * Gets the secret the nodes of the cluster authenticate to each other with.
+   *
+   * @return the cluster secret.
+   */
+  public String getClusterSecret() {
+    return this.clusterSecret;
+  }
+
+  /**
+   * Sets the secret the nodes of the cluster authenticate to each other with.
+   *
+   * @param clusterSecret the cluster secret.
+   * @throws IllegalArgumentException if the secret contains whitespace.
+   */
+  public void setClusterSecret(String clusterSecret) {
+    if (clusterSecret.chars().anyMatch(Character::isWhitespace)) {
+      throw new IllegalArgumentException("The cluster secret cannot contain whitespace.");
+    }
+    this.clusterSecret = clusterSecret;
+  }
+
+  /**
+   * Gets the time the session of a disconnected client is kept so the client can resume it.
+   *
+   * @return the session timeout (in milliseconds), or {@code 0} if sessions end when the client
+   *         disconnects.
+   */
+  public long getSessionTimeoutMillis() {
+    return this.sessionTimeoutMillis;
+  }
+
+  /**
+   * Sets the time the session of a disconnected client is kept so the client can resume it.
+   * Until then the player keeps its seat in its game.
+   *
+   * @param sessionTimeoutMillis the session timeout (in milliseconds), or {@code 0} to end
+   *                             sessions when the client disconnects.
+   * @throws IllegalArgumentException if the timeout is negative.
+   */
+  public void setSessionTimeoutMillis(long sessionTimeoutMillis) {
+    if (sessionTimeoutMillis < 0) {
+      throw new IllegalArgumentException("The session timeout cannot be negative.");
+    }
+    this.sessionTimeoutMillis = sessionTimeoutMillis;
+  }
+
+  /**
+   * Gets the number of unacknowledged game events each session keeps for a resuming client.
+   *
+   * @return the number of events kept per session.
+   */
+  public int getSessionReplaySize() {
+    return this.sessionReplaySize;
+  }
+
+  /**
+   * Sets the number of unacknowledged game events each session keeps for a resuming client.
+   *
+   * @param sessionReplaySize the number of events kept per session.
+   * @throws IllegalArgumentException if the number is not positive.
+   */
+  public void setSessionReplaySize(int sessionReplaySize) {
+    if (sessionReplaySize <= 0) {
+      throw new IllegalArgumentException("The session replay size must be positive.");
+    }
+    this.sessionReplaySize = sessionReplaySize;
+  }
+}
@@ -0,0 +1,269 @@
+package org.example;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.logic.ChatRateLimiter;
+import org.example.logic.HashedWheelTimer;
+import org.example.logic.Player;
+
+/**
+ * The Session class ties a player to the connections of one client, so a client that loses its
+ * connection can resume playing on a new one.
+ * <p>
+ * Every session has a secret token, sent to the client with its username. The game events sent
+ * to the player ({@code UPDATE GAME_STARTED}, {@code UPDATE ROUND_FINISHED},
+ * {@code UPDATE MESSAGE_SENT}, {@code CAUGHT_SUCCESSFULLY} and {@code MESSAGE_RECEIVED}) are
+ * numbered from 1 in the order they are sent, and kept until the client acknowledges them with
+ * {@code ACK sequence}. At most a fixed number of events are kept; older ones are dropped
+ * first. A client resuming the session with {@code RESUME_SESSION token sequence} is sent
+ * {@code SESSION_RESUMED username isAdmin nextSequence} followed by the kept events after the
+ * given sequence number, where {@code nextSequence} is the number of the first event that
+ * follows. A {@code nextSequence} above the given sequence number plus one means events were
+ * dropped. Events of a game played on another cluster node are relayed to the client as plain
+ * messages, and are numbered and kept by the session of the client's own node like any other
+ * event (see {@link #isEvent(String)}), so the numbers stay in step with what the client
+ * receives.
+ * <p>
+ * The chat rate limit of the client is kept by the session too, so resuming from a new
+ * connection does not give the client a fresh burst.
+ * <p>
+ * Sending an event and attaching a connection are done under the lock of the session, so no
+ * event is sent twice or lost while a connection takes over.
+ */
+public class Session {
+  private static final String[] EVENT_PREFIXES = {"UPDATE GAME_STARTED", "UPDATE ROUND_FINISHED",
+                                                  "UPDATE MESSAGE_SENT", "CAUGHT_SUCCESSFULLY",
+                                                  "MESSAGE_RECEIVED"};
+  private final String token;
+  private final Player player;
+  private final int replaySize;
+  private final ChatRateLimiter chatRateLimiter;
+  private final Lock lock;
+  private final ArrayDeque<ByteBuffer> events;
+  private long firstSequence;
+  private ClientHandler clientHandler;
+  private HashedWheelTimer.Timeout expiry;
+  private boolean expired;
+
+  /**
+   * Creates a new instance of {@code Session}, attached to the connection the player was
+   * created on.
+   *
+   * @param token           the secret token of the session
+   * @param player          the player of the session
+   * @param replaySize      the number of unacknowledged events to keep
+   * @param chatRateLimiter the chat rate limit of the client
+   */
+  Session(String token, Player player, int replaySize, ChatRateLimiter chatRateLimiter) {
+    this.token = token;
+    this.player = player;
+    this.replaySize = replaySize;
+    this.chatRateLimiter = chatRateLimiter;
+    this.lock = new ReentrantLock();
+    this.events = new ArrayDeque<>();
+    this.firstSequence = 1;
+    this.clientHandler = player.getClientHandler();
+  }
+
+  /**
+   * Checks if a message is a game event, which is numbered and kept by the session.
+   *
+   * @param message the message, without the line terminator
+   * @return {@code true} if the message is a game event, or {@code false} if not
+   */
+  public static boolean isEvent(String message) {
+    for (String prefix : EVENT_PREFIXES) {
+      if (message.startsWith(prefix)
+          && (message.length() == prefix.length() || message.charAt(prefix.length()) == ' ')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the secret token of the session.
+   *
+   * @return the token
+   */
+  public String getToken() {
+    return this.token;
+  }
+
+  /**
+   * Gets the player of the session.
+   *
+   * @return the player
+   */
+  public Player getPlayer() {
+    return this.player;
+  }
+
+  /**
+   * Gets the chat rate limit of the client, shared by every connection of the session.
+   *
+   * @return the chat rate limiter
+   */
+  public ChatRateLimiter getChatRateLimiter() {
+    return this.chatRateLimiter;
+  }
+
+  /**
+   * Numbers a game event, keeps it for a resuming client, and sends it to the attached
+   * connection, if any.
+   *
+   * @param encodedEvent the encoded event, which may be shared with other recipients
+   */
+  public void sendEvent(ByteBuffer encodedEvent) {
+    this.lock.lock();
+    try {
+      if (this.events.size() == this.replaySize) {
+        this.events.pollFirst();
+        this.firstSequence++;
+      }
+      this.events.addLast(encodedEvent);
+      if (this.clientHandler != null) {
+        this.clientHandler.send(encodedEvent);
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets the events the client has received.
+   *
+   * @param sequence the number of the last event the client has received
+   */
+  public void acknowledge(long sequence) {
+    this.lock.lock();
+    try {
+      this.trim(sequence);
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Forgets the events up to a sequence number. The caller must hold the lock.
+   *
+   * @param sequence the number of the last event to forget
+   */
+  private void trim(long sequence) {
+    while (this.firstSequence <= sequence && !this.events.isEmpty()) {
+      this.events.pollFirst();
+      this.firstSequence++;
+    }
+  }
+
+  /**
+   * Attaches a new connection to the session and sends it the events after the last one the
+   * client received. A connection still attached is replaced, and closed once the lock is
+   * released.
+   *
+   * @param client       the new connection
+   * @param lastSequence the number of the last event the client received
+   * @return {@code true} if the connection was attached, or {@code false} if the session has
+   *         expired
+   */
+  boolean attach(ClientHandler client, long lastSequence) {
+    ClientHandler previous;
+    this.lock.lock();
+    try {
+      if (this.expired) {
+        return false;
+      }
+      if (this.expiry != null) {
+        this.expiry.cancel();
+        this.expiry = null;
+      }
+      previous = this.clientHandler;
+      this.clientHandler = client;
+      client.setSession(this);
+      this.player.setClientHandler(client);
+      this.trim(lastSequence);
+      client.send("SESSION_RESUMED " + this.player.getName() + " " + this.player.isAdmin() + " "
+                  + this.firstSequence);
+      for (ByteBuffer event : this.events) {
+        client.send(event);
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+    if (previous != null && previous != client) {
+      previous.closeConnection();
+    }
+    return true;
+  }
+
+  /**
+   * Detaches a connection that has been closed. Events sent while no connection is attached are
+   * kept for the client to resume.
+   *
+   * @param client the closed connection
+   * @return {@code true} if the connection was attached, or {@code false} if another connection
+   *         has taken over the session
+   */
+  boolean detach(ClientHandler client) {
+    this.lock.lock();
+    try {
+      if (this.clientHandler != client) {
+        return false;
+      }
+      this.clientHandler = null;
+      return true;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Sets the timer that expires the session while no connection is attached.
+   *
+   * @param expiry the pending expiry
+   */
+  void setExpiry(HashedWheelTimer.Timeout expiry) {
+    this.lock.lock();
+    try {
+      if (this.clientHandler == null && !this.expired) {
+        if (this.expiry != null) {
+          this.expiry.cancel();
+        }
+        this.expiry = expiry;
+      }
+      else {
+        expiry.cancel();
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Ends the session if no connection has been attached since it was detached.
+   *
+   * @return {@code true} if the session has ended, or {@code false} if a connection is
+   *         attached or the session had already ended
+   */
+  boolean expire() {
+    this.lock.lock();
+    try {
+      if (this.clientHandler != null || this.expired) {
+        return false;
+      }
+      this.expired = true;
+      this.events.clear();
+      return true;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+}
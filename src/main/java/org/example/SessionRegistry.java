@@ -0,0 +1,125 @@
+package org.example;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.example.log.Log;
+import org.example.logic.ChatRateLimiter;
+import org.example.logic.Player;
+
+/**
+ * The SessionRegistry class keeps the {@link Session}s of the server by their tokens.
+ * <p>
+ * A session is opened when a client is given a username, and lives on after the client
+ * disconnects for the session timeout, so the client can resume it from a new connection. The
+ * player keeps its seat in its game until the session expires, after which it leaves the game
+ * like a disconnected client did before sessions, and its username can be handed out again.
+ * Tokens are 128 random bits, so a session can only be resumed by the client it was given to.
+ */
+public class SessionRegistry {
+  private static final int TOKEN_BYTES = 16;
+  private final Server server;
+  private final SecureRandom random;
+  private final Map<String, Session> sessions;
+
+  /**
+   * Creates a new instance of {@code SessionRegistry}.
+   *
+   * @param server the server the sessions belong to
+   */
+  public SessionRegistry(Server server) {
+    this.server = server;
+    this.random = new SecureRandom();
+    this.sessions = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Opens a session for a new player, attached to the player's connection.
+   *
+   * @param player the player, created on the connection of the client
+   * @return the new session
+   */
+  public Session open(Player player) {
+    byte[] tokenBytes = new byte[TOKEN_BYTES];
+    this.random.nextBytes(tokenBytes);
+    String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+    ServerSettings settings = this.server.getSettings();
+    Session session = new Session(token, player, settings.getSessionReplaySize(),
+                                  new ChatRateLimiter(settings.getChatMessagesPerMinute(),
+                                                      settings.getChatBurst()));
+    player.getClientHandler().setSession(session);
+    this.sessions.put(token, session);
+    return session;
+  }
+
+  /**
+   * Resumes a session on a new connection, and sends the connection the events the client
+   * missed.
+   *
+   * @param token        the token of the session
+   * @param client       the new connection
+   * @param lastSequence the number of the last event the client received
+   * @return the resumed session, or {@code null} if there is no session with the token
+   */
+  public Session resume(String token, ClientHandler client, long lastSequence) {
+    Session session = this.sessions.get(token);
+    if (session == null || !session.attach(client, lastSequence)) {
+      return null;
+    }
+    this.server.getMetrics().sessionResumed();
+    Log.info("Client resumed session", "player", session.getPlayer().getName(), "ip",
+             client.getIpAddress(), "last_sequence", lastSequence);
+    return session;
+  }
+
+  /**
+   * Detaches a closed connection from its session, and starts the session timeout.
+   *
+   * @param session the session of the connection
+   * @param client  the closed connection
+   * @return {@code true} if the connection was attached to the session, or {@code false} if
+   *         another connection has taken over the session
+   */
+  public boolean detach(Session session, ClientHandler client) {
+    if (!session.detach(client)) {
+      return false;
+    }
+    long timeoutMillis = this.server.getSettings().getSessionTimeoutMillis();
+    if (timeoutMillis == 0) {
+      this.expire(session);
+    }
+    else {
+      session.setExpiry(this.server.getTimer().schedule(() -> this.expire(session),
+                                                        timeoutMillis, TimeUnit.MILLISECONDS));
+    }
+    return true;
+  }
+
+  /**
+   * Ends a session that has not been resumed in time, removes its player from its game, and
+   * releases its username.
+   *
+   * @param session the session to end
+   */
+  private void expire(Session session) {
+    if (!session.expire()) {
+      return;
+    }
+    this.sessions.remove(session.getToken(), session);
+    this.server.leaveGame(session.getPlayer());
+    this.server.getUsernameCollection().releaseUsername(session.getPlayer().getName());
+    this.server.getMetrics().sessionExpired();
+    Log.info("Session expired", "player", session.getPlayer().getName());
+  }
+
+  /**
+   * Gets the number of open sessions, including those waiting to be resumed.
+   *
+   * @return the number of sessions
+   */
+  public int size() {
+    return this.sessions.size();
+  }
+}
@@ -0,0 +1,230 @@
+package org.example.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.Server;
+import org.example.log.Log;
+
+/**
+ * The Cluster class lets several server instances share one lobby directory.
+ * <p>
+ * Every instance is started with the same list of nodes and its own node id. Each lobby is owned
+ * by the node its name hashes to on a {@link ConsistentHashRing}, and only exists on that node.
+ * Every node subscribes to the lobby list of every other node (see {@link PeerLink}), so its
+ * clients are shown the lobbies of the whole cluster. Commands for a lobby owned by another node
+ * are relayed to the owner over a {@link RemoteSession}, which the owner treats as an ordinary
+ * client. Nodes authenticate to each other with a shared secret.
+ * <p>
+ * Without any nodes configured the server runs on its own and owns every lobby.
+ */
+public class Cluster {
+  private final Server server;
+  private final List<ClusterMember> members;
+  private final ClusterMember localMember;
+  private final byte[] secret;
+  private final ConsistentHashRing<ClusterMember> ring;
+  private final Map<String, Map<String, String>> remoteLobbies;
+
+  /**
+   * Creates a new instance of {@code Cluster}.
+   *
+   * @param server      the local server
+   * @param members     the nodes of the cluster, including the local node, or an empty list to
+   *                    run on its own
+   * @param localNodeId the id of the local node
+   * @param secret      the secret shared by the nodes
+   * @throws IllegalArgumentException if the local node is not one of the nodes, if two nodes
+   *                                  have the same id, or if the secret is empty
+   */
+  public Cluster(Server server, List<ClusterMember> members, String localNodeId, String secret) {
+    this.server = server;
+    this.members = List.copyOf(members);
+    this.secret = secret.getBytes(StandardCharsets.UTF_8);
+    this.ring = new ConsistentHashRing<>();
+    this.remoteLobbies = new ConcurrentHashMap<>();
+    ClusterMember localMember = null;
+    Map<String, ClusterMember> membersById = new LinkedHashMap<>();
+    for (ClusterMember member : this.members) {
+      if (membersById.put(member.id(), member) != null) {
+        throw new IllegalArgumentException("Duplicate cluster node id: " + member.id());
+      }
+      if (member.id().equals(localNodeId)) {
+        localMember = member;
+      }
+      this.ring.add(member.id(), member);
+    }
+    if (!this.members.isEmpty() && localMember == null) {
+      throw new IllegalArgumentException("The node id " + localNodeId
+                                         + " is not one of the cluster nodes.");
+    }
+    if (!this.members.isEmpty() && this.secret.length == 0) {
+      throw new IllegalArgumentException("A cluster secret is required in cluster mode.");
+    }
+    this.localMember = localMember;
+  }
+
+  /**
+   * Starts subscribing to the lobby lists of the other nodes.
+   */
+  public void start() {
+    if (!this.isEnabled()) {
+      return;
+    }
+    for (ClusterMember member : this.members) {
+      if (member != this.localMember) {
+        Thread.ofVirtual().name("cluster-peer-" + member.id()).start(new PeerLink(this, member));
+      }
+    }
+    Log.info("Cluster started", "node", this.localMember.id(), "nodes", this.members.size());
+  }
+
+  /**
+   * Checks if the server is part of a cluster.
+   *
+   * @return {@code true} if cluster nodes are configured, or {@code false} if the server runs on
+   *         its own
+   */
+  public boolean isEnabled() {
+    return this.localMember != null;
+  }
+
+  /**
+   * Gets the local node.
+   *
+   * @return the local node, or {@code null} if the server runs on its own
+   */
+  public ClusterMember getLocalMember() {
+    return this.localMember;
+  }
+
+  /**
+   * Gets the position of the local node in the list of nodes, which every node is configured
+   * with in the same order.
+   *
+   * @return the index of the local node, or {@code 0} if the server runs on its own
+   */
+  public int getLocalIndex() {
+    return this.isEnabled() ? this.members.indexOf(this.localMember) : 0;
+  }
+
+  /**
+   * Gets the number of nodes in the cluster.
+   *
+   * @return the number of nodes, or {@code 1} if the server runs on its own
+   */
+  public int size() {
+    return this.isEnabled() ? this.members.size() : 1;
+  }
+
+  /**
+   * Gets the node that owns a lobby.
+   *
+   * @param lobbyName the name of the lobby
+   * @return the owning node, or {@code null} if the server runs on its own
+   */
+  public ClusterMember getOwner(String lobbyName) {
+    return this.ring.get(lobbyName);
+  }
+
+  /**
+   * Checks if a lobby is owned by the local node.
+   *
+   * @param lobbyName the name of the lobby
+   * @return {@code true} if the lobby belongs to this node, or {@code false} if it belongs to
+   *         another node
+   */
+  public boolean isLocal(String lobbyName) {
+    ClusterMember owner = this.getOwner(lobbyName);
+    return owner == null || owner == this.localMember;
+  }
+
+  /**
+   * Checks a secret presented by another node, in constant time.
+   *
+   * @param secret the presented secret
+   * @return {@code true} if the server is in a cluster and the secret matches, or {@code false}
+   *         if not
+   */
+  public boolean isValidSecret(String secret) {
+    return this.isEnabled()
+        && MessageDigest.isEqual(this.secret, secret.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Gets the secret shared by the nodes.
+   *
+   * @return the secret
+   */
+  String getSecret() {
+    return new String(this.secret, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Adds the lobbies of the other nodes to a lobby snapshot, in the order the nodes are listed.
+   *
+   * @param snapshot the snapshot to add to, mapping lobby names to
+   *                 {@code name.players.capacity} entries
+   */
+  public void addRemoteLobbies(Map<String, String> snapshot) {
+    for (ClusterMember member : this.members) {
+      Map<String, String> lobbies = this.remoteLobbies.get(member.id());
+      if (lobbies != null) {
+        for (Map.Entry<String, String> lobby : lobbies.entrySet()) {
+          snapshot.putIfAbsent(lobby.getKey(), lobby.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the number of lobbies known to be open on the other nodes.
+   *
+   * @return the number of remote lobbies
+   */
+  public int getRemoteLobbyCount() {
+    int count = 0;
+    for (Map<String, String> lobbies : this.remoteLobbies.values()) {
+      count += lobbies.size();
+    }
+    return count;
+  }
+
+  /**
+   * Replaces the known lobbies of another node and tells the local clients.
+   *
+   * @param memberId the id of the node
+   * @param lobbies  the open lobbies of the node, mapping lobby names to
+   *                 {@code name.players.capacity} entries
+   */
+  void setRemoteLobbies(String memberId, Map<String, String> lobbies) {
+    Map<String, String> previous = this.remoteLobbies.put(memberId, lobbies);
+    if (!lobbies.equals(previous == null ? Collections.emptyMap() : previous)) {
+      this.server.sendLobbyInfoToClients();
+    }
+  }
+
+  /**
+   * Parses a full lobby list message.
+   *
+   * @param message the {@code UPDATE LOBBY name.players.capacity ...} message
+   * @return a map from lobby name to the lobby's {@code name.players.capacity} entry
+   */
+  static Map<String, String> parseLobbyList(String message) {
+    Map<String, String> lobbies = new LinkedHashMap<>();
+    String[] entries = message.split(" ");
+    for (int i = 2; i < entries.length; i++) {
+      String entry = entries[i];
+      int capacityDot = entry.lastIndexOf('.');
+      int playersDot = capacityDot > 0 ? entry.lastIndexOf('.', capacityDot - 1) : -1;
+      if (playersDot > 0) {
+        lobbies.put(entry.substring(0, playersDot), entry);
+      }
+    }
+    return lobbies;
+  }
+}
@@ -0,0 +1,39 @@
+package org.example.cluster;
+
+/**
+ * A server instance in a cluster, identified by a unique id and reached on the address its
+ * clients connect to.
+ *
+ * @param id   the unique id of the node
+ * @param host the host name or IP address of the node
+ * @param port the port the node accepts client connections on
+ */
+public record ClusterMember(String id, String host, int port) {
+
+  /**
+   * Parses a member written as {@code id@host:port}.
+   *
+   * @param member the member to parse
+   * @return the parsed member
+   * @throws IllegalArgumentException if the member is not in the format {@code id@host:port}
+   */
+  public static ClusterMember parse(String member) {
+    int at = member.indexOf('@');
+    int colon = member.lastIndexOf(':');
+    if (at <= 0 || colon < at + 2 || colon == member.length() - 1) {
+      throw new IllegalArgumentException("Invalid cluster node: " + member);
+    }
+    try {
+      return new ClusterMember(member.substring(0, at), member.substring(at + 1, colon),
+                               Integer.parseInt(member.substring(colon + 1)));
+    }
+    catch (NumberFormatException exception) {
+      throw new IllegalArgumentException("Invalid cluster node port: " + member);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return this.id + "@" + this.host + ":" + this.port;
+  }
+}
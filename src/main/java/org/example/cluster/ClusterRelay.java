@@ -0,0 +1,138 @@
+package org.example.cluster;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.example.ClientHandler;
+
+/**
+ * The ClusterRelay class holds the {@link RemoteSession}s of a single local client.
+ * <p>
+ * A client has at most one session per node. The session of the node whose lobby the client
+ * last joined is the active one, and the commands a client sends from inside a lobby or game
+ * ({@code LEAVE_LOBBY}, {@code CATCH_SHRIMP}, {@code CHAT_MESSAGE}) go to it. Joining a lobby
+ * elsewhere closes the sessions on the other nodes, so the client is only ever in one lobby.
+ * The relay is only used by the thread handling the client's messages, apart from sessions
+ * reporting that they have closed. It never blocks: commands are queued on the sessions, and a
+ * command that cannot be forwarded is answered with its failure reply once that is known.
+ */
+public class ClusterRelay {
+  private final Cluster cluster;
+  private final ClientHandler client;
+  private final Map<String, RemoteSession> sessions;
+  private volatile RemoteSession activeSession;
+
+  /**
+   * Creates a new instance of {@code ClusterRelay}.
+   *
+   * @param cluster the cluster of the local node
+   * @param client  the local client
+   */
+  public ClusterRelay(Cluster cluster, ClientHandler client) {
+    this.cluster = cluster;
+    this.client = client;
+    this.sessions = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Forwards a command to the node owning a lobby, opening a session there if needed.
+   *
+   * @param owner        the node owning the lobby
+   * @param message      the command, without the line terminator
+   * @param failureReply the message sent to the client if the node cannot be reached
+   */
+  public void send(ClusterMember owner, String message, String failureReply) {
+    RemoteSession session = this.getSession(owner);
+    if (!session.send(message, failureReply)) {
+      this.sessions.remove(owner.id(), session);
+      if (!this.getSession(owner).send(message, failureReply)) {
+        this.client.send(failureReply);
+      }
+    }
+  }
+
+  /**
+   * Forwards a {@code JOIN_LOBBY} command to the node owning the lobby, and makes its session
+   * the active one. Sessions on other nodes are closed.
+   *
+   * @param owner        the node owning the lobby
+   * @param message      the command, without the line terminator
+   * @param failureReply the message sent to the client if the node cannot be reached
+   */
+  public void join(ClusterMember owner, String message, String failureReply) {
+    for (String memberId : this.sessions.keySet()) {
+      if (!memberId.equals(owner.id())) {
+        this.closeSession(memberId);
+      }
+    }
+    this.send(owner, message, failureReply);
+    this.activeSession = this.sessions.get(owner.id());
+  }
+
+  /**
+   * Forwards a command to the node of the lobby or game the client is in.
+   *
+   * @param message      the command, without the line terminator
+   * @param failureReply the message sent to the client if the node cannot be reached
+   * @return {@code true} if the command was handed to the relay, or {@code false} if the client
+   *         is not in a lobby on another node
+   */
+  public boolean forwardToActive(String message, String failureReply) {
+    RemoteSession session = this.activeSession;
+    if (session == null) {
+      return false;
+    }
+    if (!session.send(message, failureReply)) {
+      this.client.send(failureReply);
+    }
+    return true;
+  }
+
+  /**
+   * Closes every session, removing the client from any lobby or game on other nodes.
+   */
+  public void close() {
+    for (String memberId : this.sessions.keySet()) {
+      this.closeSession(memberId);
+    }
+  }
+
+  /**
+   * Gets the session on a node, opening it if there is none.
+   *
+   * @param owner the node
+   * @return the session on the node
+   */
+  private RemoteSession getSession(ClusterMember owner) {
+    RemoteSession session = this.sessions.get(owner.id());
+    if (session == null) {
+      session = new RemoteSession(owner, this, this.client, this.cluster.getSecret());
+      this.sessions.put(owner.id(), session);
+    }
+    return session;
+  }
+
+  /**
+   * Closes the session on a node, if there is one.
+   *
+   * @param memberId the id of the node
+   */
+  private void closeSession(String memberId) {
+    RemoteSession session = this.sessions.remove(memberId);
+    if (session != null) {
+      session.close();
+      this.sessionClosed(session);
+    }
+  }
+
+  /**
+   * Forgets a session that has been closed.
+   *
+   * @param session the closed session
+   */
+  void sessionClosed(RemoteSession session) {
+    this.sessions.remove(session.getOwner().id(), session);
+    if (this.activeSession == session) {
+      this.activeSession = null;
+    }
+  }
+}
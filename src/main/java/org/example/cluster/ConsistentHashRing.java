@@ -0,0 +1,103 @@
+package org.example.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The ConsistentHashRing class maps keys to nodes so that adding or removing a node only moves
+ * the keys of that node.
+ * <p>
+ * Each node is placed on a 64-bit ring at a number of points derived from its id, and a key
+ * belongs to the first node point at or after the hash of the key, wrapping around. Spreading
+ * each node over many points keeps the share of keys per node even. The hash only depends on
+ * the bytes of the ids and keys, so every server instance given the same nodes agrees on the
+ * owner of every key. The nodes are added before the ring is shared, after which any thread may
+ * look up keys.
+ *
+ * @param <T> the type of the nodes
+ */
+public class ConsistentHashRing<T> {
+  private static final int DEFAULT_POINTS_PER_NODE = 128;
+  private final int pointsPerNode;
+  private final TreeMap<Long, T> ring;
+
+  /**
+   * Creates a new, empty instance of {@code ConsistentHashRing}.
+   */
+  public ConsistentHashRing() {
+    this(DEFAULT_POINTS_PER_NODE);
+  }
+
+  /**
+   * Creates a new, empty instance of {@code ConsistentHashRing}.
+   *
+   * @param pointsPerNode the number of points each node is placed at on the ring
+   * @throws IllegalArgumentException if the number of points is not positive
+   */
+  public ConsistentHashRing(int pointsPerNode) {
+    if (pointsPerNode <= 0) {
+      throw new IllegalArgumentException("The number of points per node must be positive.");
+    }
+    this.pointsPerNode = pointsPerNode;
+    this.ring = new TreeMap<>();
+  }
+
+  /**
+   * Adds a node to the ring.
+   *
+   * @param id   the unique id of the node, which decides where it is placed on the ring
+   * @param node the node
+   */
+  public void add(String id, T node) {
+    for (int point = 0; point < this.pointsPerNode; point++) {
+      this.ring.put(hash(id + "#" + point), node);
+    }
+  }
+
+  /**
+   * Removes a node from the ring.
+   *
+   * @param id the unique id of the node
+   */
+  public void remove(String id) {
+    for (int point = 0; point < this.pointsPerNode; point++) {
+      this.ring.remove(hash(id + "#" + point));
+    }
+  }
+
+  /**
+   * Gets the node a key belongs to.
+   *
+   * @param key the key to look up
+   * @return the node owning the key, or {@code null} if the ring is empty
+   */
+  public T get(String key) {
+    if (this.ring.isEmpty()) {
+      return null;
+    }
+    Map.Entry<Long, T> entry = this.ring.ceilingEntry(hash(key));
+    return entry != null ? entry.getValue() : this.ring.firstEntry().getValue();
+  }
+
+  /**
+   * Hashes a string to a point on the ring, using 64-bit FNV-1a over its UTF-8 bytes followed
+   * by a final mix so that similar strings land far apart.
+   *
+   * @param value the string to hash
+   * @return the point of the string on the ring
+   */
+  static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
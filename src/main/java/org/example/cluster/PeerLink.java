@@ -0,0 +1,79 @@
+package org.example.cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.example.log.Log;
+
+/**
+ * The PeerLink class keeps the local node subscribed to the lobby list of another node.
+ * <p>
+ * The link connects to the other node like a client and sends
+ * {@code CLUSTER_SUBSCRIBE secret nodeId}. The other node then sends its own lobbies as
+ * {@code UPDATE LOBBY} messages whenever they change. If the connection is lost, the lobbies of
+ * the other node are forgotten and the link keeps trying to reconnect. A {@code PING} from the
+ * other node is answered with {@code PONG}.
+ */
+class PeerLink implements Runnable {
+  private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+  private static final long RECONNECT_DELAY_MILLIS = 1000;
+  private final Cluster cluster;
+  private final ClusterMember member;
+
+  /**
+   * Creates a new instance of {@code PeerLink}.
+   *
+   * @param cluster the cluster of the local node
+   * @param member  the node to subscribe to
+   */
+  PeerLink(Cluster cluster, ClusterMember member) {
+    this.cluster = cluster;
+    this.member = member;
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(this.member.host(), this.member.port()),
+                       CONNECT_TIMEOUT_MILLIS);
+        OutputStream outputStream = socket.getOutputStream();
+        outputStream.write(("CLUSTER_SUBSCRIBE " + this.cluster.getSecret() + " "
+                            + this.cluster.getLocalMember().id() + "\r\n")
+                               .getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+        Log.info("Connected to cluster node", "node", this.member.id());
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        while (line != null) {
+          if (line.equals("UPDATE LOBBY") || line.startsWith("UPDATE LOBBY ")) {
+            this.cluster.setRemoteLobbies(this.member.id(), Cluster.parseLobbyList(line));
+          }
+          else if (line.equals("PING")) {
+            outputStream.write("PONG\r\n".getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+          }
+          line = reader.readLine();
+        }
+        Log.warn("Lost cluster node", "node", this.member.id());
+      }
+      catch (IOException exception) {
+        Log.debug("Failed to reach cluster node", "node", this.member.id(), "exception",
+                  exception);
+      }
+      this.cluster.setRemoteLobbies(this.member.id(), Collections.emptyMap());
+      try {
+        Thread.sleep(RECONNECT_DELAY_MILLIS);
+      }
+      catch (InterruptedException exception) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,199 @@
+package org.example.cluster;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.example.ClientHandler;
+import org.example.Session;
+import org.example.log.Log;
+
+/**
+ * The RemoteSession class relays the commands of a local client to the node that owns the lobby
+ * the client is using.
+ * <p>
+ * The session connects to the owning node like a client and sends
+ * {@code CLUSTER_ATTACH secret username}, after which the owning node treats it as a player with
+ * the client's username. Commands are forwarded unchanged, and every message from the owning
+ * node apart from {@code PING} is passed on to the client by a reader thread. Closing the
+ * session disconnects the player on the owning node, which removes it from its lobby or game
+ * there.
+ * <p>
+ * Connecting and writing are done by a thread of the session, so the thread handling the
+ * client's messages, which may be an event loop shared with other clients, only queues the
+ * commands. A command that is not forwarded because the owning node could not be reached, or
+ * because the session was closed first, is answered to the client with its failure reply.
+ */
+class RemoteSession {
+  private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+  private static final Command CLOSE = new Command(null, null);
+  private final ClusterMember owner;
+  private final ClusterRelay relay;
+  private final ClientHandler client;
+  private final Socket socket;
+  private final BlockingQueue<Command> commands;
+  private final Lock lock;
+  private boolean closed;
+
+  /**
+   * Starts opening a session on the owning node. The session is connected by its own thread,
+   * and commands sent before it is connected are forwarded once it is.
+   *
+   * @param owner  the node owning the lobby
+   * @param relay  the relay of the client the session belongs to
+   * @param client the local client
+   * @param secret the secret shared by the nodes
+   */
+  RemoteSession(ClusterMember owner, ClusterRelay relay, ClientHandler client, String secret) {
+    this.owner = owner;
+    this.relay = relay;
+    this.client = client;
+    this.socket = new Socket();
+    this.commands = new LinkedBlockingQueue<>();
+    this.lock = new ReentrantLock();
+    String attach = "CLUSTER_ATTACH " + secret + " " + client.getPlayer().getName();
+    Thread.ofVirtual().name("cluster-relay-" + owner.id()).start(() -> this.run(attach));
+  }
+
+  /**
+   * Gets the node the session is open on.
+   *
+   * @return the owning node
+   */
+  ClusterMember getOwner() {
+    return this.owner;
+  }
+
+  /**
+   * Queues a command to be forwarded to the owning node.
+   *
+   * @param message      the command, without the line terminator
+   * @param failureReply the message sent to the client if the command is not forwarded, or
+   *                     {@code null} to send nothing
+   * @return {@code true} if the command was queued, or {@code false} if the session has closed
+   */
+  boolean send(String message, String failureReply) {
+    this.lock.lock();
+    try {
+      if (this.closed) {
+        return false;
+      }
+      this.commands.add(new Command(message, failureReply));
+      return true;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Closes the session. Commands that have not been forwarded yet are answered with their
+   * failure replies.
+   */
+  void close() {
+    try {
+      this.socket.close();
+    }
+    catch (IOException exception) {
+      Log.warn("Failed to close relay session", "node", this.owner.id(), "exception", exception);
+    }
+    this.commands.add(CLOSE);
+  }
+
+  /**
+   * Connects to the owning node, starts passing its messages on to the client, and forwards the
+   * queued commands until the session is closed.
+   *
+   * @param attach the command attaching the client on the owning node
+   */
+  private void run(String attach) {
+    Command command = null;
+    try {
+      this.socket.connect(new InetSocketAddress(this.owner.host(), this.owner.port()),
+                          CONNECT_TIMEOUT_MILLIS);
+      this.socket.setTcpNoDelay(true);
+      OutputStream outputStream = this.socket.getOutputStream();
+      BufferedReader reader = new BufferedReader(
+          new InputStreamReader(this.socket.getInputStream(), StandardCharsets.UTF_8));
+      Thread.ofVirtual().name("cluster-relay-reader-" + this.owner.id())
+          .start(() -> this.read(reader));
+      outputStream.write((attach + "\r\n").getBytes(StandardCharsets.UTF_8));
+      outputStream.flush();
+      command = this.commands.take();
+      while (command != CLOSE) {
+        outputStream.write((command.message() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+        command = this.commands.take();
+      }
+    }
+    catch (IOException exception) {
+      Log.warn("Failed to relay command", "node", this.owner.id(), "exception", exception);
+      if (command != null && command.failureReply() != null) {
+        this.client.send(command.failureReply());
+      }
+    }
+    catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+    }
+    this.close();
+    this.lock.lock();
+    try {
+      this.closed = true;
+      for (Command unsent : this.commands) {
+        if (unsent != CLOSE && unsent.failureReply() != null) {
+          this.client.send(unsent.failureReply());
+        }
+      }
+      this.commands.clear();
+    }
+    finally {
+      this.lock.unlock();
+    }
+    this.relay.sessionClosed(this);
+  }
+
+  /**
+   * Passes the messages of the owning node on to the client until the connection is closed. A
+   * {@code PING} is answered by the session, since the {@code PONG} of the client is not
+   * relayed. Game events go through the client's own session, which numbers them.
+   *
+   * @param reader the reader of the connection
+   */
+  private void read(BufferedReader reader) {
+    try {
+      String line = reader.readLine();
+      while (line != null) {
+        if (line.equals("PING")) {
+          this.send("PONG", null);
+        }
+        else if (Session.isEvent(line)) {
+          this.client.sendEvent(line);
+        }
+        else {
+          this.client.send(line);
+        }
+        line = reader.readLine();
+      }
+    }
+    catch (IOException exception) {
+      Log.debug("Relay session failed", "node", this.owner.id(), "exception", exception);
+    }
+    this.close();
+  }
+
+  /**
+   * A command queued to be forwarded.
+   *
+   * @param message      the command, without the line terminator
+   * @param failureReply the message sent to the client if the command is not forwarded
+   */
+  private record Command(String message, String failureReply) {
+  }
+}
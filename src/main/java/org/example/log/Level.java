@@ -0,0 +1,26 @@
+package org.example.log;
+
+/**
+ * The levels of log records, from the most to the least detailed.
+ */
+public enum Level {
+  /**
+   * Detailed records of individual client actions and messages sent.
+   */
+  DEBUG,
+
+  /**
+   * Connections, lobbies and games starting and ending.
+   */
+  INFO,
+
+  /**
+   * Failures that affect a single client or operation.
+   */
+  WARN,
+
+  /**
+   * Failures that affect the whole server.
+   */
+  ERROR
+}
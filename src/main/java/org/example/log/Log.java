@@ -0,0 +1,92 @@
+package org.example.log;
+
+/**
+ * The Log class is the server's asynchronous, structured logger.
+ * <p>
+ * A record is a fixed message followed by key/value fields, for example
+ * {@code Log.info("Player joined lobby", "player", name, "lobby", lobbyName)}. The calling thread
+ * only checks the level and places the record in a bounded ring buffer. Formatting and console
+ * output happen on a background thread, so a record below the configured level costs a single
+ * comparison and nothing is written to the console while locks are held on the request path.
+ */
+public final class Log {
+  private static final int BUFFER_CAPACITY = 8192;
+  private static final LogWriter WRITER = new LogWriter(BUFFER_CAPACITY, System.out, System.err);
+  private static volatile Level level = Level.INFO;
+
+  private Log() {
+  }
+
+  /**
+   * Sets the lowest level that is logged.
+   *
+   * @param level the lowest level to log
+   */
+  public static void setLevel(Level level) {
+    Log.level = level;
+  }
+
+  /**
+   * Checks if records of a level are logged. Use this to skip building field values that are
+   * expensive to compute.
+   *
+   * @param level the level to check
+   * @return {@code true} if records of the level are logged, or {@code false} if not
+   */
+  public static boolean isEnabled(Level level) {
+    return level.compareTo(Log.level) >= 0;
+  }
+
+  /**
+   * Logs a record at {@link Level#DEBUG}.
+   *
+   * @param message the message
+   * @param fields  alternating keys and values
+   */
+  public static void debug(String message, Object... fields) {
+    log(Level.DEBUG, message, fields);
+  }
+
+  /**
+   * Logs a record at {@link Level#INFO}.
+   *
+   * @param message the message
+   * @param fields  alternating keys and values
+   */
+  public static void info(String message, Object... fields) {
+    log(Level.INFO, message, fields);
+  }
+
+  /**
+   * Logs a record at {@link Level#WARN}.
+   *
+   * @param message the message
+   * @param fields  alternating keys and values
+   */
+  public static void warn(String message, Object... fields) {
+    log(Level.WARN, message, fields);
+  }
+
+  /**
+   * Logs a record at {@link Level#ERROR}.
+   *
+   * @param message the message
+   * @param fields  alternating keys and values
+   */
+  public static void error(String message, Object... fields) {
+    log(Level.ERROR, message, fields);
+  }
+
+  /**
+   * Logs a record if its level is enabled.
+   *
+   * @param level   the level of the record
+   * @param message the message
+   * @param fields  alternating keys and values
+   */
+  public static void log(Level level, String message, Object... fields) {
+    if (isEnabled(level)) {
+      WRITER.offer(new LogRecord(level, message, fields));
+    }
+  }
+}
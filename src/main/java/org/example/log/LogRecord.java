@@ -0,0 +1,96 @@
+package org.example.log;
+
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * A single log event as it waits in the ring buffer. The message and fields are kept as they
+ * were passed, and are only turned into text by the log writer thread.
+ */
+final class LogRecord {
+  private final long timeMillis;
+  private final Level level;
+  private final String threadName;
+  private final String message;
+  private final Object[] fields;
+
+  /**
+   * Creates a new instance of {@code LogRecord}.
+   *
+   * @param level   the level of the record
+   * @param message the message of the record
+   * @param fields  alternating keys and values
+   */
+  LogRecord(Level level, String message, Object[] fields) {
+    this.timeMillis = System.currentTimeMillis();
+    this.level = level;
+    this.threadName = Thread.currentThread().getName();
+    this.message = message;
+    this.fields = fields;
+  }
+
+  /**
+   * Gets the level of the record.
+   *
+   * @return the level
+   */
+  Level getLevel() {
+    return this.level;
+  }
+
+  /**
+   * Appends the record as a single line, in the form
+   * {@code time LEVEL [thread] message key=value ...}. Values containing spaces, quotes or
+   * {@code =} are quoted.
+   *
+   * @param line the builder to append the line to
+   */
+  void format(StringBuilder line) {
+    DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(this.timeMillis), line);
+    line.append(' ').append(this.level.name());
+    for (int padding = this.level.name().length(); padding < 5; padding++) {
+      line.append(' ');
+    }
+    line.append(" [").append(this.threadName).append("] ").append(this.message);
+    for (int index = 0; index + 1 < this.fields.length; index += 2) {
+      line.append(' ').append(this.fields[index]).append('=');
+      appendValue(line, String.valueOf(this.fields[index + 1]));
+    }
+    line.append(System.lineSeparator());
+  }
+
+  /**
+   * Appends a field value, quoting it if it would otherwise be ambiguous.
+   *
+   * @param line  the builder to append the value to
+   * @param value the value to append
+   */
+  private static void appendValue(StringBuilder line, String value) {
+    boolean quote = value.isEmpty();
+    for (int index = 0; index < value.length() && !quote; index++) {
+      char character = value.charAt(index);
+      quote = character == ' ' || character == '"' || character == '=' || character < ' ';
+    }
+    if (!quote) {
+      line.append(value);
+      return;
+    }
+    line.append('"');
+    for (int index = 0; index < value.length(); index++) {
+      char character = value.charAt(index);
+      if (character == '"' || character == '\\') {
+        line.append('\\').append(character);
+      }
+      else if (character == '\n') {
+        line.append("\\n");
+      }
+      else if (character == '\r') {
+        line.append("\\r");
+      }
+      else {
+        line.append(character);
+      }
+    }
+    line.append('"');
+  }
+}
@@ -0,0 +1,123 @@
+package org.example.log;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The LogWriter class moves log records from the logging threads to the console.
+ * <p>
+ * Records are placed in a bounded ring buffer without locking. A single background thread
+ * formats them and writes each batch with one call per stream: records below
+ * {@link Level#WARN} go to standard output, the rest to standard error. When the ring is full
+ * new records are dropped and counted rather than blocking the caller, and the number of dropped
+ * records is reported with the next batch.
+ */
+final class LogWriter implements Runnable {
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+  private final AtomicReferenceArray<LogRecord> slots;
+  private final int mask;
+  private final AtomicLong tail;
+  private final AtomicLong dropped;
+  private final PrintStream out;
+  private final PrintStream err;
+  private final StringBuilder outBatch;
+  private final StringBuilder errBatch;
+  private final Thread thread;
+  private volatile long head;
+  private volatile boolean waiting;
+
+  /**
+   * Creates a new instance of {@code LogWriter} and starts its thread.
+   *
+   * @param capacity the number of records the ring buffer holds, rounded up to a power of two
+   * @param out      the stream records below {@link Level#WARN} are written to
+   * @param err      the stream the other records are written to
+   */
+  LogWriter(int capacity, PrintStream out, PrintStream err) {
+    int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+    this.slots = new AtomicReferenceArray<>(size);
+    this.mask = size - 1;
+    this.tail = new AtomicLong();
+    this.dropped = new AtomicLong();
+    this.out = out;
+    this.err = err;
+    this.outBatch = new StringBuilder();
+    this.errBatch = new StringBuilder();
+    this.head = 0;
+    this.thread = Thread.ofPlatform().name("log-writer").daemon(true).unstarted(this);
+    this.thread.start();
+    Runtime.getRuntime().addShutdownHook(new Thread(this::drain, "log-flush"));
+  }
+
+  /**
+   * Adds a record to the ring buffer, or drops it if the buffer is full.
+   *
+   * @param record the record to add
+   */
+  void offer(LogRecord record) {
+    long claimed;
+    do {
+      claimed = this.tail.get();
+      if (claimed - this.head >= this.slots.length()) {
+        this.dropped.incrementAndGet();
+        return;
+      }
+    } while (!this.tail.compareAndSet(claimed, claimed + 1));
+    this.slots.set((int) claimed & this.mask, record);
+    if (this.waiting) {
+      LockSupport.unpark(this.thread);
+    }
+  }
+
+  /**
+   * Drains the ring buffer until the server exits, parking while it is empty.
+   */
+  @Override
+  public void run() {
+    while (true) {
+      if (!this.drain()) {
+        this.waiting = true;
+        if (this.slots.get((int) this.head & this.mask) == null) {
+          LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        this.waiting = false;
+      }
+    }
+  }
+
+  /**
+   * Formats and writes every record published so far.
+   *
+   * @return {@code true} if any records were written, or {@code false} if the buffer was empty
+   */
+  private synchronized boolean drain() {
+    long position = this.head;
+    LogRecord record = this.slots.get((int) position & this.mask);
+    boolean drained = record != null;
+    while (record != null) {
+      this.slots.set((int) position & this.mask, null);
+      this.head = ++position;
+      record.format(record.getLevel().compareTo(Level.WARN) < 0 ? this.outBatch : this.errBatch);
+      record = this.slots.get((int) position & this.mask);
+    }
+    long droppedRecords = this.dropped.getAndSet(0);
+    if (droppedRecords > 0) {
+      new LogRecord(Level.WARN, "Dropped log records", new Object[] {"count", droppedRecords})
+          .format(this.errBatch);
+    }
+    if (this.outBatch.length() > 0) {
+      this.out.print(this.outBatch);
+      this.out.flush();
+      this.outBatch.setLength(0);
+    }
+    if (this.errBatch.length() > 0) {
+      this.err.print(this.errBatch);
+      this.err.flush();
+      this.errBatch.setLength(0);
+    }
+    return drained || droppedRecords > 0;
+  }
+}
@@ -0,0 +1,83 @@
+package org.example.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The ChatLog class keeps the most recent chat messages of a game in a fixed-size ring.
+ * <p>
+ * Once the ring is full, adding a message evicts the oldest one and hands it back to the caller,
+ * which decides where it goes. The log is only used by its game's mailbox and is not safe to
+ * use from several threads at once.
+ */
+public class ChatLog {
+  private final String[] messages;
+  private int head;
+  private int size;
+
+  /**
+   * Creates a new, empty instance of {@code ChatLog}.
+   *
+   * @param capacity the maximum number of messages kept.
+   * @throws IllegalArgumentException if the capacity is not positive.
+   */
+  public ChatLog(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The chat log capacity must be positive.");
+    }
+    this.messages = new String[capacity];
+    this.head = 0;
+    this.size = 0;
+  }
+
+  /**
+   * Adds a message, evicting the oldest message if the log is full.
+   *
+   * @param message the message to add.
+   * @return the evicted message, or {@code null} if no message was evicted.
+   */
+  public String add(String message) {
+    int tail = (this.head + this.size) % this.messages.length;
+    String evicted = null;
+    if (this.size == this.messages.length) {
+      evicted = this.messages[this.head];
+      this.head = (this.head + 1) % this.messages.length;
+    }
+    else {
+      this.size++;
+    }
+    this.messages[tail] = message;
+    return evicted;
+  }
+
+  /**
+   * Gets the messages kept in the log.
+   *
+   * @return a copy of the messages, from oldest to newest.
+   */
+  public List<String> getMessages() {
+    List<String> messages = new ArrayList<>(this.size);
+    for (int index = 0; index < this.size; index++) {
+      messages.add(this.messages[(this.head + index) % this.messages.length]);
+    }
+    return messages;
+  }
+
+  /**
+   * Gets the number of messages kept in the log.
+   *
+   * @return the number of messages.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Gets the maximum number of messages kept in the log.
+   *
+   * @return the capacity of the log.
+   */
+  public int getCapacity() {
+    return this.messages.length;
+  }
+}
@@ -0,0 +1,49 @@
+package org.example.logic;
+
+/**
+ * The ChatRateLimiter class limits how often a single client may send chat messages.
+ * <p>
+ * It allows a burst of messages, after which messages are allowed at a steady rate. The limit is
+ * tracked as the time the next message would be allowed if no burst were left (a generic cell
+ * rate algorithm), so checking a message needs no timer and no allocation. A limiter belongs to
+ * one client session and outlives its connections, so reconnecting does not restore the burst.
+ * Checks are synchronized, since a connection taking over a session may overlap briefly with
+ * the connection it replaces.
+ */
+public class ChatRateLimiter {
+  private final long intervalNanos;
+  private final long burstNanos;
+  private long theoreticalArrivalNanos;
+
+  /**
+   * Creates a new instance of {@code ChatRateLimiter}.
+   *
+   * @param messagesPerMinute the number of messages allowed per minute after a burst.
+   * @param burst             the number of messages that may be sent at once.
+   * @throws IllegalArgumentException if the rate or burst is not positive.
+   */
+  public ChatRateLimiter(int messagesPerMinute, int burst) {
+    if (messagesPerMinute <= 0 || burst <= 0) {
+      throw new IllegalArgumentException("The chat rate and burst must be positive.");
+    }
+    this.intervalNanos = 60_000_000_000L / messagesPerMinute;
+    this.burstNanos = this.intervalNanos * (burst - 1);
+    this.theoreticalArrivalNanos = System.nanoTime();
+  }
+
+  /**
+   * Checks if a message may be sent now, and counts it if so.
+   *
+   * @return {@code true} if the message may be sent, or {@code false} if the client is over its
+   *         limit.
+   */
+  public synchronized boolean tryAcquire() {
+    long now = System.nanoTime();
+    long arrival = this.theoreticalArrivalNanos - now > 0 ? this.theoreticalArrivalNanos : now;
+    if (arrival - now > this.burstNanos) {
+      return false;
+    }
+    this.theoreticalArrivalNanos = arrival + this.intervalNanos;
+    return true;
+  }
+}
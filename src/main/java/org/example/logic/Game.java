@@ -1,9 +1,8 @@
 package org.example.logic;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * The Island class represents an island where players can catch shrimp.
@@ -12,13 +11,22 @@ import java.util.Map;
  * available on the island.
  */
 public class Game {
+  /**
+   * The number of chat messages a game keeps unless configured otherwise.
+   */
+  public static final int DEFAULT_CHAT_CAPACITY = 200;
   private final String name;
   private final int number;
   private final List<Player> players;
   private final GameSettings gameSettings;
-  private final List<String> messages;
-  private final Map<Integer, Round> rounds;
+  private final ChatLog chatLog;
+  private final List<Round> rounds;
+  private final Mailbox mailbox;
   private int currentRoundNum;
+  private HashedWheelTimer.Timeout roundDeadline;
+  private final boolean[] leftSeats;
+  private int playersLeft;
+  private boolean closed;
 
   /**
    * Creates a new instance of {@code Game}.
@@ -29,29 +37,47 @@ public class Game {
    * @param gameSettings the settings of the game.
    */
   public Game(String name, int number, List<Player> players, GameSettings gameSettings) {
+    this(name, number, players, gameSettings, Runnable::run);
+  }
+
+  /**
+   * Creates a new instance of {@code Game} whose events are run on a shared executor.
+   *
+   * @param name the name of the island.
+   * @param number the unique identifier for the game.
+   * @param players the list of players of the game.
+   * @param gameSettings the settings of the game.
+   * @param gameExecutor the executor shared by the mailboxes of all games.
+   */
+  public Game(String name, int number, List<Player> players, GameSettings gameSettings,
+              Executor gameExecutor) {
+    this(name, number, players, gameSettings, gameExecutor, DEFAULT_CHAT_CAPACITY);
+  }
+
+  /**
+   * Creates a new instance of {@code Game} whose events are run on a shared executor and which
+   * keeps a limited number of chat messages.
+   *
+   * @param name the name of the island.
+   * @param number the unique identifier for the game.
+   * @param players the list of players of the game.
+   * @param gameSettings the settings of the game.
+   * @param gameExecutor the executor shared by the mailboxes of all games.
+   * @param chatCapacity the maximum number of chat messages kept by the game.
+   */
+  public Game(String name, int number, List<Player> players, GameSettings gameSettings,
+              Executor gameExecutor, int chatCapacity) {
     this.name = name;
     this.number = number;
     this.players = players;
     this.gameSettings = gameSettings;
-    this.messages = new ArrayList<String>();
-    this.rounds = new HashMap<Integer, Round>();
+    this.chatLog = new ChatLog(chatCapacity);
+    this.rounds = new ArrayList<Round>();
+    this.mailbox = new Mailbox(gameExecutor);
     this.currentRoundNum = 1;
-  }
-
-  /**
-   * Creates a new instance of {@code Game} from another {@code Game} object.
-   * 
-   * @param game the {@code Game} object to copy from.
-   */
-  public Game(Game game)
-  {
-    this.name = game.getName();
-    this.number = game.getNumber();
-    this.players = new ArrayList<>(game.getPlayers());
-    this.gameSettings = new GameSettings(game.getGameSettings());
-    this.messages = new ArrayList<>(game.getMessages());
-    this.rounds = new HashMap<>(game.getRounds());
-    this.currentRoundNum = game.getCurrentRoundNum();
+    this.leftSeats = new boolean[players.size()];
+    this.playersLeft = 0;
+    this.closed = false;
   }
 
   /**
@@ -93,22 +119,54 @@ public class Game {
   /**
    * Gets the messages from the game.
    * 
-   * @return the messages between the players during the game.
+   * @return a copy of the most recent messages between the players during the game, from oldest
+   *         to newest.
    */
   public List<String> getMessages()
   {
-    return this.messages;
+    return this.chatLog.getMessages();
+  }
+
+  /**
+   * Adds a message to the chat of the game. Once the chat is full, the oldest message is evicted
+   * to make room.
+   *
+   * @param message the message to add.
+   * @return the evicted message, or {@code null} if no message was evicted.
+   */
+  public String addMessage(String message) {
+    return this.chatLog.add(message);
   }
 
   /**
    * Gets the rounds of the game.
    * 
-   * @return the rounds of the game.
+   * @return the finished rounds of the game, ordered by round number.
    */
-  public Map<Integer, Round> getRounds() {
+  public List<Round> getRounds() {
     return this.rounds;
   }
 
+  /**
+   * Gets a finished round of the game.
+   * 
+   * @param number the number of the round, starting at 1.
+   * @return the round with the given number.
+   */
+  public Round getRound(int number) {
+    return this.rounds.get(number - 1);
+  }
+
+  /**
+   * Gets the mailbox of the game. Player actions in the game are submitted to the mailbox, so
+   * they are applied one at a time and in order.
+   *
+   * @return the mailbox of the game.
+   */
+  public Mailbox getMailbox() {
+    return this.mailbox;
+  }
+
   /**
    * Gets the current round number of the game.
    * 
@@ -118,6 +176,60 @@ public class Game {
     return this.currentRoundNum;
   }
 
+  /**
+   * Sets the deadline of the current round, cancelling the deadline of the previous round if it
+   * has not expired yet.
+   *
+   * @param roundDeadline the timer task that ends the current round.
+   */
+  public void setRoundDeadline(HashedWheelTimer.Timeout roundDeadline) {
+    this.cancelRoundDeadline();
+    this.roundDeadline = roundDeadline;
+  }
+
+  /**
+   * Cancels the deadline of the current round, if there is one.
+   */
+  public void cancelRoundDeadline() {
+    if (this.roundDeadline != null) {
+      this.roundDeadline.cancel();
+      this.roundDeadline = null;
+    }
+  }
+
+  /**
+   * Records that a player has left the game.
+   *
+   * @param player the player that left.
+   * @return {@code true} if every player has now left the game, or {@code false} if not.
+   */
+  public boolean markPlayerLeft(Player player) {
+    int seat = this.players.indexOf(player);
+    if (seat >= 0 && !this.leftSeats[seat]) {
+      this.leftSeats[seat] = true;
+      this.playersLeft++;
+    }
+    return this.playersLeft == this.players.size();
+  }
+
+  /**
+   * Closes the game, so no more rounds are played, and cancels the deadline of the current
+   * round.
+   */
+  public void close() {
+    this.closed = true;
+    this.cancelRoundDeadline();
+  }
+
+  /**
+   * Checks if the game has been closed, either because it finished or because every player left.
+   *
+   * @return {@code true} if the game is closed, or {@code false} if not.
+   */
+  public boolean isClosed() {
+    return this.closed;
+  }
+
   /**
    * Checks if the game contains a specified {@code Player}.
    * 
@@ -148,32 +260,24 @@ public class Game {
    * Stores the current round information to the list of rounds of the game.
    */
   public void storeCurrentRound() {
-    Round round = new Round(this.currentRoundNum);
-    Map<Player, Integer> playerShrimpCaughtMap = new HashMap<>();
-    for (Player player : this.players) {
-      playerShrimpCaughtMap.put(player, player.getShrimpCaught());
+    int numberOfSeats = this.players.size();
+    Round round = new Round(this.currentRoundNum, numberOfSeats);
+    for (int seat = 0; seat < numberOfSeats; seat++) {
+      Player player = this.players.get(seat);
+      round.setShrimpCaught(seat, player.getShrimpCaught());
       player.setShrimpCaught(-1);
     }
-    round.setPlayerShrimpCaughtMap(playerShrimpCaughtMap);
     round.calculateShrimpPrice();
     int shrimpPrice = round.getShrimpPrice();
-    Map<Player, Integer> playerRoundProfitMap = new HashMap<>();
-    for (Player player : this.players)
-    {
-      int roundProfit =
-          player.calculateProfitValue(shrimpPrice) * playerShrimpCaughtMap.get(player);
-      playerRoundProfitMap.put(player, roundProfit);
-    }
-    round.setPlayerRoundProfitMap(playerRoundProfitMap);
-    Map<Player, Integer> playerMoneyMap = new HashMap<>();
-    for (Player player : this.players) {
-      int profit = player.calculateProfitValue(shrimpPrice) * playerShrimpCaughtMap.get(player);
+    for (int seat = 0; seat < numberOfSeats; seat++) {
+      Player player = this.players.get(seat);
+      int profit = player.calculateProfitValue(shrimpPrice) * round.getShrimpCaught(seat);
       int money = player.getMoney() + profit;
       player.setMoney(money);
-      playerMoneyMap.put(player, money);
+      round.setRoundProfit(seat, profit);
+      round.setTotalProfit(seat, money);
     }
-    round.setPlayerTotalProfitMap(playerMoneyMap);
-    this.rounds.put(round.getNumber(), round);
+    this.rounds.add(round);
     this.currentRoundNum++;
   }
 }
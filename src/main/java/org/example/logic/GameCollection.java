@@ -1,7 +1,10 @@
 package org.example.logic;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * The GameCollection class represents a game collection with a name, game settings, status, a
@@ -16,6 +19,7 @@ public class GameCollection {
   private String gameStatus;
   private final List<Player> players;
   private final List<Game> games;
+  private final Map<Player, Game> playerGameMap;
 
   /**
    * Constructs a new Game object with the specified game ID, name, settings, status, and players.
@@ -25,20 +29,52 @@ public class GameCollection {
    * @param players  the list of players in the game
    */
   public GameCollection(String name, GameSettings settings, List<Player> players) {
+    this(name, settings, players, Runnable::run);
+  }
+
+  /**
+   * Constructs a new Game object whose games run their events on a shared executor.
+   *
+   * @param name         the name of the game
+   * @param settings     the settings of the game
+   * @param players      the list of players in the game
+   * @param gameExecutor the executor shared by the mailboxes of all games
+   */
+  public GameCollection(String name, GameSettings settings, List<Player> players,
+                        Executor gameExecutor) {
+    this(name, settings, players, gameExecutor, Game.DEFAULT_CHAT_CAPACITY);
+  }
+
+  /**
+   * Constructs a new Game object whose games run their events on a shared executor and keep a
+   * limited number of chat messages.
+   *
+   * @param name         the name of the game
+   * @param settings     the settings of the game
+   * @param players      the list of players in the game
+   * @param gameExecutor the executor shared by the mailboxes of all games
+   * @param chatCapacity the maximum number of chat messages kept by each game
+   */
+  public GameCollection(String name, GameSettings settings, List<Player> players,
+                        Executor gameExecutor, int chatCapacity) {
     this.name = name;
     this.settings = settings;
     this.players = new ArrayList<>(players);
     List<Player> gamePlayers = new ArrayList<Player>();
     List<Game> games = new ArrayList<>();
+    Map<Player, Game> playerGameMap = new HashMap<>();
     int gameNum = 1;
     for (Player player : players) {
       if (gamePlayers.isEmpty() || gamePlayers.size() % 3 != 0) {
         gamePlayers.add(player);
       }
       if (gamePlayers.size() % 3 == 0) {
-        Game game = new Game(name, gameNum, new ArrayList<>(gamePlayers), settings);
+        Game game =
+            new Game(name, gameNum, new ArrayList<>(gamePlayers), settings, gameExecutor,
+                     chatCapacity);
         for (Player gamePlayer : gamePlayers) {
           gamePlayer.setGame(game);
+          playerGameMap.put(gamePlayer, game);
         }
         games.add(game);
         gamePlayers.clear();
@@ -46,6 +82,7 @@ public class GameCollection {
       }
     }
     this.games = games;
+    this.playerGameMap = playerGameMap;
   }
 
   /**
@@ -101,4 +138,14 @@ public class GameCollection {
   public List<Game> getIslands() {
     return this.games;
   }
+
+  /**
+   * Gets the game a player has been placed in.
+   *
+   * @param player the player to look up.
+   * @return the game of the player, or {@code null} if the player was not placed in a game.
+   */
+  public Game getGame(Player player) {
+    return this.playerGameMap.get(player);
+  }
 }
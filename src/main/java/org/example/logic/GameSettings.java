@@ -183,4 +183,40 @@ public class GameSettings {
   public void setMaxShrimpKilograms(int maxShrimpKilograms) {
     this.maxShrimpKilograms = maxShrimpKilograms;
   }
+
+  /**
+   * Checks if a round is a communication round, in which the players may chat before catching
+   * shrimp.
+   *
+   * @param roundNumber the number of the round, starting at 1.
+   * @return {@code true} if the round is listed in the communication rounds, or {@code false} if
+   *         not.
+   */
+  public boolean isCommunicationRound(int roundNumber) {
+    if (this.communicationRounds == null) {
+      return false;
+    }
+    String round = Integer.toString(roundNumber);
+    for (String communicationRound : this.communicationRounds.split(",")) {
+      if (communicationRound.trim().equals(round)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Gets the time the players have to catch shrimp in a round, including the communication
+   * time of a communication round.
+   *
+   * @param roundNumber the number of the round, starting at 1.
+   * @return the time (in seconds) the round lasts.
+   */
+  public int getRoundDuration(int roundNumber) {
+    int duration = this.roundTime;
+    if (this.isCommunicationRound(roundNumber)) {
+      duration += this.communicationRoundTime;
+    }
+    return duration;
+  }
 }
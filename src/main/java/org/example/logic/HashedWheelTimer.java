@@ -0,0 +1,309 @@
+package org.example.logic;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import org.example.log.Log;
+
+/**
+ * The HashedWheelTimer class runs tasks after a delay, using a single thread for any number of
+ * pending tasks.
+ * <p>
+ * Time is divided into ticks of a fixed duration, and the wheel has one bucket per tick, wrapping
+ * around after a full turn. A scheduled task is placed in the bucket of the tick it expires in,
+ * together with the number of full turns left before it is due. Every tick the timer thread only
+ * looks at one bucket, so scheduling, cancelling and expiring a task all take constant time no
+ * matter how many tasks are pending. Tasks run at most one tick late, on the timer thread, so
+ * they should only hand work off to another executor (such as a game's {@link Mailbox}).
+ * <p>
+ * Any thread may schedule or cancel tasks. New and cancelled tasks are queued and moved into or
+ * out of the wheel by the timer thread, so the buckets need no locking.
+ */
+public class HashedWheelTimer {
+  private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Queue<Timeout> scheduledTimeouts;
+  private final Queue<Timeout> cancelledTimeouts;
+  private final AtomicInteger pendingTimeouts;
+  private final long startNanos;
+  private long tick;
+
+  /**
+   * Creates a new instance of {@code HashedWheelTimer} and starts its thread.
+   *
+   * @param name         the name of the timer thread.
+   * @param tickDuration the duration of a tick, which is the precision of the timer.
+   * @param unit         the unit of the tick duration.
+   * @param wheelSize    the number of ticks in a turn of the wheel, rounded up to a power of two.
+   * @throws IllegalArgumentException if the tick duration or wheel size is not positive.
+   */
+  public HashedWheelTimer(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+    if (tickDuration <= 0 || wheelSize <= 0 || wheelSize > 1 << 30) {
+      throw new IllegalArgumentException("The tick duration and wheel size must be positive.");
+    }
+    this.tickNanos = unit.toNanos(tickDuration);
+    int buckets = Integer.highestOneBit(wheelSize);
+    if (buckets < wheelSize) {
+      buckets <<= 1;
+    }
+    this.wheel = new Bucket[buckets];
+    for (int i = 0; i < buckets; i++) {
+      this.wheel[i] = new Bucket();
+    }
+    this.mask = buckets - 1;
+    this.scheduledTimeouts = new ConcurrentLinkedQueue<>();
+    this.cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    this.pendingTimeouts = new AtomicInteger();
+    this.startNanos = System.nanoTime();
+    this.tick = 0;
+    Thread worker = new Thread(this::run, name);
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  /**
+   * Schedules a task to run once after a delay.
+   *
+   * @param task  the task to run on the timer thread.
+   * @param delay the delay before the task is run.
+   * @param unit  the unit of the delay.
+   * @return a handle that can be used to cancel the task.
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(Math.max(delay, 0)) - this.startNanos;
+    Timeout timeout = new Timeout(this, task, deadline);
+    this.pendingTimeouts.incrementAndGet();
+    this.scheduledTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * Gets the number of tasks that have been scheduled but have neither run nor been cancelled.
+   *
+   * @return the number of pending tasks.
+   */
+  public int size() {
+    return this.pendingTimeouts.get();
+  }
+
+  /**
+   * Runs the timer thread, expiring one bucket per tick.
+   */
+  private void run() {
+    while (true) {
+      long now = this.waitForNextTick();
+      this.removeCancelledTimeouts();
+      this.transferScheduledTimeouts();
+      this.wheel[(int) (this.tick & this.mask)].expireTimeouts(now);
+      this.tick++;
+    }
+  }
+
+  /**
+   * Sleeps until the current tick has ended.
+   *
+   * @return the time (in nanoseconds since the timer started) after the wait.
+   */
+  private long waitForNextTick() {
+    long tickEnd = this.tickNanos * (this.tick + 1);
+    while (true) {
+      long now = System.nanoTime() - this.startNanos;
+      if (now >= tickEnd) {
+        return now;
+      }
+      LockSupport.parkNanos(tickEnd - now);
+    }
+  }
+
+  /**
+   * Removes the cancelled tasks from their buckets, so they do not keep their state alive until
+   * their tick comes around.
+   */
+  private void removeCancelledTimeouts() {
+    Timeout timeout = this.cancelledTimeouts.poll();
+    while (timeout != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+      timeout = this.cancelledTimeouts.poll();
+    }
+  }
+
+  /**
+   * Moves newly scheduled tasks into the bucket of the tick they expire in.
+   */
+  private void transferScheduledTimeouts() {
+    for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+      Timeout timeout = this.scheduledTimeouts.poll();
+      if (timeout == null) {
+        return;
+      }
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long expiryTick = timeout.deadline / this.tickNanos;
+      timeout.remainingRounds = (expiryTick - this.tick) / this.wheel.length;
+      long bucketTick = Math.max(expiryTick, this.tick);
+      this.wheel[(int) (bucketTick & this.mask)].add(timeout);
+    }
+  }
+
+  /**
+   * A task scheduled on a {@link HashedWheelTimer}.
+   */
+  public static final class Timeout {
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+    private final HashedWheelTimer timer;
+    private final Runnable task;
+    private final long deadline;
+    private final AtomicInteger state;
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout next;
+    private Timeout previous;
+
+    /**
+     * Creates a new instance of {@code Timeout}.
+     *
+     * @param timer    the timer the task is scheduled on.
+     * @param task     the task to run.
+     * @param deadline the time (in nanoseconds since the timer started) the task is due.
+     */
+    private Timeout(HashedWheelTimer timer, Runnable task, long deadline) {
+      this.timer = timer;
+      this.task = task;
+      this.deadline = deadline;
+      this.state = new AtomicInteger(PENDING);
+    }
+
+    /**
+     * Cancels the task if it has not run yet.
+     *
+     * @return {@code true} if the task was cancelled, or {@code false} if it had already run or
+     *         been cancelled.
+     */
+    public boolean cancel() {
+      if (!this.state.compareAndSet(PENDING, CANCELLED)) {
+        return false;
+      }
+      this.timer.pendingTimeouts.decrementAndGet();
+      this.timer.cancelledTimeouts.add(this);
+      return true;
+    }
+
+    /**
+     * Checks if the task has been cancelled.
+     *
+     * @return {@code true} if the task has been cancelled, or {@code false} if not.
+     */
+    public boolean isCancelled() {
+      return this.state.get() == CANCELLED;
+    }
+
+    /**
+     * Checks if the task has run.
+     *
+     * @return {@code true} if the task has run, or {@code false} if not.
+     */
+    public boolean isExpired() {
+      return this.state.get() == EXPIRED;
+    }
+
+    /**
+     * Runs the task unless it has been cancelled.
+     */
+    private void expire() {
+      if (!this.state.compareAndSet(PENDING, EXPIRED)) {
+        return;
+      }
+      this.timer.pendingTimeouts.decrementAndGet();
+      try {
+        this.task.run();
+      }
+      catch (RuntimeException exception) {
+        Log.warn("Timer task failed", "exception", exception);
+      }
+    }
+  }
+
+  /**
+   * The tasks of one tick of the wheel, as a doubly linked list only touched by the timer
+   * thread.
+   */
+  private static final class Bucket {
+    private Timeout head;
+    private Timeout tail;
+
+    /**
+     * Adds a task to the bucket.
+     *
+     * @param timeout the task to add.
+     */
+    private void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (this.head == null) {
+        this.head = timeout;
+      }
+      else {
+        this.tail.next = timeout;
+        timeout.previous = this.tail;
+      }
+      this.tail = timeout;
+    }
+
+    /**
+     * Runs the tasks that are due and counts down the turns left for the others.
+     *
+     * @param now the time (in nanoseconds since the timer started).
+     */
+    private void expireTimeouts(long now) {
+      Timeout timeout = this.head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.remainingRounds <= 0 && timeout.deadline <= now) {
+          this.remove(timeout);
+          timeout.expire();
+        }
+        else if (timeout.isCancelled()) {
+          this.remove(timeout);
+        }
+        else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    /**
+     * Removes a task from the bucket.
+     *
+     * @param timeout the task to remove.
+     */
+    private void remove(Timeout timeout) {
+      if (timeout.bucket != this) {
+        return;
+      }
+      if (timeout.previous == null) {
+        this.head = timeout.next;
+      }
+      else {
+        timeout.previous.next = timeout.next;
+      }
+      if (timeout.next == null) {
+        this.tail = timeout.previous;
+      }
+      else {
+        timeout.next.previous = timeout.previous;
+      }
+      timeout.bucket = null;
+      timeout.next = null;
+      timeout.previous = null;
+    }
+  }
+}
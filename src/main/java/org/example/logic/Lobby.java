@@ -1,7 +1,9 @@
 package org.example.logic;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The Lobby class represents a lobby where players can join and wait for a game to start.
@@ -13,6 +15,7 @@ public class Lobby
     private String name;
     private List<Player> players;
     private int maxPlayers;
+    private final Lock lock;
 
     /**
      * Creates a new lobby with the given name.
@@ -29,7 +32,8 @@ public class Lobby
         }
         this.name = name;
         this.maxPlayers = maxPlayers;
-        this.players = new ArrayList<Player>();
+        this.players = new CopyOnWriteArrayList<Player>();
+        this.lock = new ReentrantLock();
     }
 
     /**
@@ -62,6 +66,17 @@ public class Lobby
         return this.players;
     }
 
+    /**
+     * Gets the lock that must be held while players join or leave the lobby, and while the
+     * lobby is turned into a game.
+     *
+     * @return the lock of the lobby
+     */
+    public Lock getLock()
+    {
+        return this.lock;
+    }
+
     /**
      * Gets the maximum amount of players allowed in the lobby.
      * 
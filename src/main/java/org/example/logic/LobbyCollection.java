@@ -0,0 +1,151 @@
+package org.example.logic;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The LobbyCollection class holds the open lobbies of the server together with their game
+ * settings.
+ * <p>
+ * Lobbies can be looked up by name, and the lobby a player is in can be looked up by player,
+ * both in constant time. The collection is safe to use from many connection threads at once.
+ * Changes to the players of a lobby are made while holding that lobby's lock (see
+ * {@link Lobby#getLock()}), so joins to different lobbies do not wait for each other.
+ */
+public class LobbyCollection {
+  private final Map<String, Lobby> nameLobbyMap;
+  private final Map<Lobby, GameSettings> lobbyGameSettingsMap;
+  private final Map<Player, Lobby> playerLobbyMap;
+
+  /**
+   * Creates a new, empty instance of {@code LobbyCollection}.
+   */
+  public LobbyCollection() {
+    this.nameLobbyMap = new ConcurrentHashMap<>();
+    this.lobbyGameSettingsMap = new ConcurrentHashMap<>();
+    this.playerLobbyMap = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Adds a new lobby to the collection.
+   *
+   * @param lobby        the lobby to add.
+   * @param gameSettings the settings of the game played once the lobby is full.
+   * @throws IllegalArgumentException if a lobby with the same name already exists.
+   */
+  public void addLobby(Lobby lobby, GameSettings gameSettings) {
+    this.lobbyGameSettingsMap.put(lobby, gameSettings);
+    if (this.nameLobbyMap.putIfAbsent(lobby.getName(), lobby) != null) {
+      this.lobbyGameSettingsMap.remove(lobby);
+      throw new IllegalArgumentException("A lobby called " + lobby.getName() + " already exists.");
+    }
+  }
+
+  /**
+   * Removes a lobby from the collection, along with the record of which players are in it.
+   *
+   * @param lobby the lobby to remove.
+   */
+  public void removeLobby(Lobby lobby) {
+    this.nameLobbyMap.remove(lobby.getName(), lobby);
+    this.lobbyGameSettingsMap.remove(lobby);
+    for (Player player : lobby.getPlayers()) {
+      this.playerLobbyMap.remove(player, lobby);
+    }
+  }
+
+  /**
+   * Gets an open lobby by its name.
+   *
+   * @param name the name of the lobby.
+   * @return the lobby, or {@code null} if there is no open lobby with the given name.
+   */
+  public Lobby getLobby(String name) {
+    return this.nameLobbyMap.get(name);
+  }
+
+  /**
+   * Checks if a lobby is still open.
+   *
+   * @param lobby the lobby to check.
+   * @return {@code true} if the lobby is in the collection, or {@code false} if not.
+   */
+  public boolean hasLobby(Lobby lobby) {
+    return this.lobbyGameSettingsMap.containsKey(lobby);
+  }
+
+  /**
+   * Gets the game settings of an open lobby.
+   *
+   * @param lobby the lobby to get the settings for.
+   * @return the game settings, or {@code null} if the lobby is not open.
+   */
+  public GameSettings getGameSettings(Lobby lobby) {
+    return this.lobbyGameSettingsMap.get(lobby);
+  }
+
+  /**
+   * Gets all the open lobbies.
+   *
+   * @return a live view of the open lobbies.
+   */
+  public Collection<Lobby> getLobbies() {
+    return this.nameLobbyMap.values();
+  }
+
+  /**
+   * Gets the number of open lobbies.
+   *
+   * @return the number of open lobbies.
+   */
+  public int size() {
+    return this.nameLobbyMap.size();
+  }
+
+  /**
+   * Gets the lobby a player is in.
+   *
+   * @param player the player to look up.
+   * @return the lobby the player is in, or {@code null} if the player is not in a lobby.
+   */
+  public Lobby getLobbyOf(Player player) {
+    return player == null ? null : this.playerLobbyMap.get(player);
+  }
+
+  /**
+   * Adds a player to a lobby. The caller must hold the lock of the lobby.
+   *
+   * @param player the player to add.
+   * @param lobby  the lobby to add the player to.
+   */
+  public void addPlayer(Player player, Lobby lobby) {
+    lobby.getPlayers().add(player);
+    this.playerLobbyMap.put(player, lobby);
+  }
+
+  /**
+   * Removes a player from the lobby they are in.
+   *
+   * @param player the player to remove.
+   * @return the lobby the player was removed from, or {@code null} if the player was not in a
+   *         lobby.
+   */
+  public Lobby removePlayer(Player player) {
+    Lobby lobby = this.getLobbyOf(player);
+    if (lobby == null) {
+      return null;
+    }
+    lobby.getLock().lock();
+    try {
+      if (!this.playerLobbyMap.remove(player, lobby)) {
+        return null;
+      }
+      lobby.getPlayers().remove(player);
+      return lobby;
+    }
+    finally {
+      lobby.getLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.example.logic;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.example.log.Log;
+
+/**
+ * The Mailbox class runs the events of a single owner one at a time, in the order they were
+ * submitted.
+ * <p>
+ * Any thread may submit events. The events are run on a shared executor, but never more than one
+ * at a time for the same mailbox, so the owner's state needs no locking. Mailboxes sharing an
+ * executor run in parallel with each other.
+ */
+public class Mailbox implements Executor {
+  private static final int EVENTS_PER_TURN = 64;
+  private final Executor executor;
+  private final Queue<Runnable> events;
+  private final AtomicBoolean scheduled;
+
+  /**
+   * Creates a new instance of {@code Mailbox}.
+   *
+   * @param executor the shared executor the events are run on.
+   */
+  public Mailbox(Executor executor) {
+    this.executor = executor;
+    this.events = new ConcurrentLinkedQueue<>();
+    this.scheduled = new AtomicBoolean(false);
+  }
+
+  /**
+   * Submits an event to the mailbox.
+   *
+   * @param event the event to run.
+   */
+  @Override
+  public void execute(Runnable event) {
+    this.events.add(event);
+    if (this.scheduled.compareAndSet(false, true)) {
+      this.executor.execute(this::processEvents);
+    }
+  }
+
+  /**
+   * Gets the number of events waiting to be run.
+   *
+   * @return the number of queued events.
+   */
+  public int size() {
+    return this.events.size();
+  }
+
+  /**
+   * Runs queued events. After a bounded number of events the mailbox gives up its executor
+   * thread and schedules itself again, so a busy mailbox does not starve the others.
+   */
+  private void processEvents() {
+    int processed = 0;
+    Runnable event = this.events.poll();
+    while (event != null) {
+      try {
+        event.run();
+      }
+      catch (RuntimeException exception) {
+        Log.warn("Game event failed", "exception", exception);
+      }
+      processed++;
+      event = processed < EVENTS_PER_TURN ? this.events.poll() : null;
+    }
+    if (processed >= EVENTS_PER_TURN && !this.events.isEmpty()) {
+      this.executor.execute(this::processEvents);
+      return;
+    }
+    this.scheduled.set(false);
+    if (!this.events.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+      this.executor.execute(this::processEvents);
+    }
+  }
+}
@@ -8,7 +8,7 @@ import org.example.ClientHandler;
  */
 public class Player {
   private final String name;
-  private final ClientHandler clientHandler;
+  private volatile ClientHandler clientHandler;
   private int money;
   private final int expenses;
   private Game game;
@@ -52,6 +52,16 @@ public class Player {
     return this.clientHandler;
   }
 
+  /**
+   * Sets the {@code ClientHandler} object of the player, when the client resumes its session
+   * on a new connection.
+   *
+   * @param clientHandler the handler for the new connection of the client.
+   */
+  public void setClientHandler(ClientHandler clientHandler) {
+    this.clientHandler = clientHandler;
+  }
+
   /**
    * Returns the amount of money the player has.
    *
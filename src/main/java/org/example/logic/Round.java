@@ -1,30 +1,35 @@
 package org.example.logic;
 
-import java.util.Map;
-
 /**
  * Represents a round with a number, shrimp price and information about the players actions.
+ * <p>
+ * The players are identified by their seat, which is their index in {@link Game#getPlayers()}.
+ * The values of each player are kept in primitive arrays indexed by seat.
  */
 public class Round {
   private final int number;
   private int shrimpPrice;
   private int totalShrimpCaught;
-  private Map<Player, Integer> playerShrimpCaughtMap;
-  private Map<Player, Integer> playerTotalProfitMap;
-  private Map<Player, Integer> playerRoundProfitMap;
+  private final int[] shrimpCaught;
+  private final int[] roundProfit;
+  private final int[] totalProfit;
 
   /**
    * Creates a new instance of {@code Round} with a specified round number.
-   * 
+   *
    * @param number the number of the round.
+   * @param numberOfSeats the number of players in the round.
    */
-  public Round(int number) {
+  public Round(int number, int numberOfSeats) {
     this.number = number;
+    this.shrimpCaught = new int[numberOfSeats];
+    this.roundProfit = new int[numberOfSeats];
+    this.totalProfit = new int[numberOfSeats];
   }
 
   /**
    * Gets the round number.
-   * 
+   *
    * @return the number of the round.
    */
   public int getNumber() {
@@ -32,69 +37,81 @@ public class Round {
   }
 
   /**
-   * Gets the shrimp caught per player.
-   * 
-   * @return a map of the amounts of shrimp each player has caught.
+   * Gets the number of players in the round.
+   *
+   * @return the number of seats.
+   */
+  public int getNumberOfSeats() {
+    return this.shrimpCaught.length;
+  }
+
+  /**
+   * Gets the shrimp caught by a player.
+   *
+   * @param seat the seat of the player.
+   * @return the amount of shrimp the player caught.
    */
-  public Map<Player, Integer> getPlayerShrimpCaughtMap() {
-    return this.playerShrimpCaughtMap;
+  public int getShrimpCaught(int seat) {
+    return this.shrimpCaught[seat];
   }
 
   /**
-   * Sets the shrimp caught per player.
-   * 
-   * @param playerShrimpCaughtMap a specified map of the amounts 
-   * of shrimp each player has caught.
+   * Sets the shrimp caught by a player.
+   *
+   * @param seat the seat of the player.
+   * @param shrimpCaught the amount of shrimp the player caught.
    */
-  public void setPlayerShrimpCaughtMap(Map<Player, Integer> playerShrimpCaughtMap) {
-    this.playerShrimpCaughtMap = playerShrimpCaughtMap;
+  public void setShrimpCaught(int seat, int shrimpCaught) {
+    this.shrimpCaught[seat] = shrimpCaught;
   }
 
   /**
-   * Gets the money per player.
-   * 
-   * @return a map of amounts of money each player has.
+   * Gets the money a player has after the round.
+   *
+   * @param seat the seat of the player.
+   * @return the amount of money the player has.
    */
-  public Map<Player, Integer> getPlayerTotalProfitMap()
+  public int getTotalProfit(int seat)
   {
-    return this.playerTotalProfitMap;
+    return this.totalProfit[seat];
   }
 
   /**
-   * Sets the money per player.
-   * 
-   * @param playerTotalProfitMap a specified map of amounts of
-   * money each player has.
+   * Sets the money a player has after the round.
+   *
+   * @param seat the seat of the player.
+   * @param totalProfit the amount of money the player has.
    */
-  public void setPlayerTotalProfitMap(Map<Player, Integer> playerTotalProfitMap)
+  public void setTotalProfit(int seat, int totalProfit)
   {
-    this.playerTotalProfitMap = playerTotalProfitMap;
+    this.totalProfit[seat] = totalProfit;
   }
 
   /**
-   * Gets the round profit per player.
-   * 
-   * @return a map of amounts of round profit each player has.
+   * Gets the profit a player made in the round.
+   *
+   * @param seat the seat of the player.
+   * @return the round profit of the player.
    */
-  public Map<Player, Integer> getPlayerRoundProfitMap()
+  public int getRoundProfit(int seat)
   {
-    return this.playerRoundProfitMap;
+    return this.roundProfit[seat];
   }
 
   /**
-   * Sets the round profit per player.
-   * 
-   * @param playerRoundProfitMap a specified map of amounts of 
-   * round profit each player has.
+   * Sets the profit a player made in the round.
+   *
+   * @param seat the seat of the player.
+   * @param roundProfit the round profit of the player.
    */
-  public void setPlayerRoundProfitMap(Map<Player, Integer> playerRoundProfitMap)
+  public void setRoundProfit(int seat, int roundProfit)
   {
-    this.playerRoundProfitMap = playerRoundProfitMap;
+    this.roundProfit[seat] = roundProfit;
   }
 
   /**
    * Gets the shrimp price of the round.
-   * 
+   *
    * @return the shrimp price.
    */
   public int getShrimpPrice() {
@@ -112,8 +129,8 @@ public class Round {
   public void calculateShrimpPrice()
   {
     int totalShrimp = 0;
-    for (int shrimpCaught : this.playerShrimpCaughtMap.values()) {
-      totalShrimp += shrimpCaught;
+    for (int seatShrimpCaught : this.shrimpCaught) {
+      totalShrimp += seatShrimpCaught;
     }
     this.totalShrimpCaught = totalShrimp;
     this.shrimpPrice = 45 - (int) (0.2 * totalShrimp);
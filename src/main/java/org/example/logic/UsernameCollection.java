@@ -1,32 +1,99 @@
 package org.example.logic;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Queue;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Represents a collection of usernames used for assigning names to players.
+ * <p>
+ * The predefined usernames are handed out in a random order. Once every one of them is in use,
+ * they are handed out again with a number added, such as {@code Bay-2}, then {@code Bay-3}, so
+ * the names never run out and no two players in use share a name. Released usernames are
+ * handed out again before new ones. Handing out and releasing a username takes constant time,
+ * and both may be called from any thread.
+ * <p>
+ * Several collections can share out the names between them without handing out the same name
+ * twice: given the same seed, they shuffle the names into the same order, and each one only
+ * hands out every n-th name of the sequence, starting at its own partition. The servers of a
+ * cluster do this, so players relayed between nodes never share a name.
  */
 public class UsernameCollection
 {
     private final List<String> usernames;
+    private final Set<String> knownUsernames;
     private final Random randomizer;
+    private final int partition;
+    private final int partitions;
+    private final AtomicLong usernamesGenerated;
+    private final Queue<String> releasedUsernames;
+    private final Set<String> usernamesInUse;
 
     /**
      * Creates a new instance of {@code UsernameCollection} with a list of predefined usernames.
      */
     public UsernameCollection()
     {
+        this(new Random(), 0, 1);
+    }
+
+    /**
+     * Creates a new instance of {@code UsernameCollection} that hands out one partition of the
+     * names shared with other collections created with the same seed.
+     * 
+     * @param seed the seed the names are shuffled with, the same for every collection sharing
+     *             the names.
+     * @param partition the partition of this collection, from {@code 0} to
+     *                  {@code partitions - 1}.
+     * @param partitions the number of collections sharing the names.
+     * @throws IllegalArgumentException if the partition is out of range.
+     */
+    public UsernameCollection(long seed, int partition, int partitions)
+    {
+        this(new Random(seed), partition, partitions);
+    }
+
+    /**
+     * Creates a new instance of {@code UsernameCollection}.
+     * 
+     * @param randomizer the randomizer the names are shuffled with.
+     * @param partition the partition of this collection.
+     * @param partitions the number of collections sharing the names.
+     * @throws IllegalArgumentException if the partition is out of range.
+     */
+    private UsernameCollection(Random randomizer, int partition, int partitions)
+    {
+        if (partitions <= 0 || partition < 0 || partition >= partitions)
+        {
+            throw new IllegalArgumentException("The username partition is out of range!");
+        }
         this.usernames = new ArrayList<String>();
+        this.knownUsernames = new HashSet<String>();
+        this.randomizer = randomizer;
+        this.partition = partition;
+        this.partitions = partitions;
+        this.usernamesGenerated = new AtomicLong();
+        this.releasedUsernames = new ConcurrentLinkedQueue<String>();
+        this.usernamesInUse = ConcurrentHashMap.newKeySet();
         this.fillCollectionWithUsernames();
-        this.randomizer = new Random();
+        Collections.shuffle(this.usernames, this.randomizer);
     }
 
     /**
-     * Adds a specified username to the list of usernames.
+     * Adds a specified username to the list of usernames. A username that is already in the
+     * list is ignored. Usernames can only be added before the first one is handed out.
      * 
      * @param username the username to add.
-     * @throws IllegalArgumentException if the given username is {@code null} or blank.
+     * @throws IllegalArgumentException if the given username is {@code null} or blank, or
+     *                                  contains whitespace or a {@code .}.
+     * @throws IllegalStateException if usernames have already been handed out.
      */
     public void addUsername(String username)
     {
@@ -38,7 +105,18 @@ public class UsernameCollection
         {
             throw new IllegalArgumentException("Username cannot be blank!");
         }
-        this.usernames.add(username);
+        else if (username.contains(".") || username.chars().anyMatch(Character::isWhitespace))
+        {
+            throw new IllegalArgumentException("Username cannot contain whitespace or dots!");
+        }
+        else if (this.usernamesGenerated.get() > 0)
+        {
+            throw new IllegalStateException("Usernames cannot be added once handed out!");
+        }
+        if (this.knownUsernames.add(username))
+        {
+            this.usernames.add(username);
+        }
     }
 
     /**
@@ -370,7 +448,7 @@ public class UsernameCollection
         this.addUsername("Katy-Perry");
         this.addUsername("Lionel-Messi");
         this.addUsername("Cristiano-Ronaldo");
-        this.addUsername("Neymar-Jr.");
+        this.addUsername("Neymar-Jr");
         this.addUsername("Kylian-Mbappé");
         this.addUsername("Mohammed-Salah");
         this.addUsername("Robert-Lewandowski");
@@ -408,11 +486,11 @@ public class UsernameCollection
         this.addUsername("Tfue");
         this.addUsername("Pokimane");
         this.addUsername("xQc");
-        this.addUsername("Dr.Disrespect");
+        this.addUsername("Dr-Disrespect");
         this.addUsername("Jacksepticeye");
         this.addUsername("Markiplier");
         this.addUsername("Shane-Dawson");
-        this.addUsername("Mr.Beast");
+        this.addUsername("Mr-Beast");
         this.addUsername("Casey-Neistat");
         this.addUsername("Julius-Caesar");
         this.addUsername("Augustus-Caesar");
@@ -458,7 +536,7 @@ public class UsernameCollection
         this.addUsername("Tupac-Shakur");
         this.addUsername("Oasis");
         this.addUsername("Radiohead");
-        this.addUsername("Dr.Dre");
+        this.addUsername("Dr-Dre");
         this.addUsername("Beyoncé");
         this.addUsername("Eminem");
         this.addUsername("Justin-Timberlake");
@@ -667,15 +745,45 @@ public class UsernameCollection
     }
 
     /**
-     * Gets a random username from the list of usernames.
+     * Hands out a username that is not in use. A released username is reused if there is one;
+     * otherwise the next unused name is generated from the list of usernames and a number.
      * 
-     * @return a random username.
+     * @return a username that no other player in use has.
+     * @throws IllegalStateException if the list of usernames is empty.
      */
     public String getRandomUsername()
     {
-        int randomIndex = randomizer.nextInt(this.usernames.size());
-        String randomUserName = this.usernames.get(randomIndex);
-        this.usernames.remove(randomIndex);
-        return randomUserName;
+        String username = this.releasedUsernames.poll();
+        if (username == null)
+        {
+            if (this.usernames.isEmpty())
+            {
+                throw new IllegalStateException("There are no usernames to hand out!");
+            }
+            long index =
+                this.usernamesGenerated.getAndIncrement() * this.partitions + this.partition;
+            long number = index / this.usernames.size();
+            username = this.usernames.get((int) (index % this.usernames.size()));
+            if (number > 0)
+            {
+                username = username + "-" + (number + 1);
+            }
+        }
+        this.usernamesInUse.add(username);
+        return username;
+    }
+
+    /**
+     * Releases a username so that it can be handed out again. Usernames that were not handed out
+     * by this collection, or that have already been released, are ignored.
+     * 
+     * @param username the username to release.
+     */
+    public void releaseUsername(String username)
+    {
+        if (this.usernamesInUse.remove(username))
+        {
+            this.releasedUsernames.add(username);
+        }
     }
 }
@@ -0,0 +1,47 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A value that only goes up, such as the number of commands handled.
+ */
+public class Counter implements Metric {
+  private final LongAdder value;
+
+  /**
+   * Creates a new instance of {@code Counter} starting at zero.
+   */
+  Counter() {
+    this.value = new LongAdder();
+  }
+
+  /**
+   * Adds one to the counter.
+   */
+  public void increment() {
+    this.value.increment();
+  }
+
+  /**
+   * Adds an amount to the counter.
+   *
+   * @param amount the amount to add, which must not be negative
+   */
+  public void add(long amount) {
+    this.value.add(amount);
+  }
+
+  /**
+   * Gets the current value of the counter.
+   *
+   * @return the current value
+   */
+  public long get() {
+    return this.value.sum();
+  }
+
+  @Override
+  public void write(String name, String labels, StringBuilder out) {
+    Metric.writeSample(out, name, labels, this.value.sum());
+  }
+}
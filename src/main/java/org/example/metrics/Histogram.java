@@ -0,0 +1,62 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A distribution of observed values counted into fixed buckets, such as command latencies.
+ * <p>
+ * Values are observed as {@code long}s in their natural unit (for example nanoseconds) and are
+ * multiplied by a scale when written, so the exported bucket bounds and sum can use the base unit
+ * Prometheus expects (for example seconds) without any floating point work on the hot path.
+ */
+public class Histogram implements Metric {
+  private final long[] bounds;
+  private final double scale;
+  private final LongAdder[] buckets;
+  private final LongAdder sum;
+
+  /**
+   * Creates a new instance of {@code Histogram}.
+   *
+   * @param bounds the inclusive upper bounds of the buckets, in ascending order
+   * @param scale  the factor the bounds and sum are multiplied by when written
+   */
+  Histogram(long[] bounds, double scale) {
+    this.bounds = bounds.clone();
+    this.scale = scale;
+    this.buckets = new LongAdder[bounds.length + 1];
+    for (int index = 0; index < this.buckets.length; index++) {
+      this.buckets[index] = new LongAdder();
+    }
+    this.sum = new LongAdder();
+  }
+
+  /**
+   * Records an observed value.
+   *
+   * @param value the observed value, in the unit of the bounds
+   */
+  public void observe(long value) {
+    int bucket = 0;
+    while (bucket < this.bounds.length && value > this.bounds[bucket]) {
+      bucket++;
+    }
+    this.buckets[bucket].increment();
+    this.sum.add(value);
+  }
+
+  @Override
+  public void write(String name, String labels, StringBuilder out) {
+    String separator = labels.isEmpty() ? "" : labels + ",";
+    long cumulative = 0;
+    for (int index = 0; index < this.bounds.length; index++) {
+      cumulative += this.buckets[index].sum();
+      Metric.writeSample(out, name + "_bucket",
+                         separator + "le=\"" + this.bounds[index] * this.scale + "\"", cumulative);
+    }
+    cumulative += this.buckets[this.bounds.length].sum();
+    Metric.writeSample(out, name + "_bucket", separator + "le=\"+Inf\"", cumulative);
+    Metric.writeSample(out, name + "_sum", labels, this.sum.sum() * this.scale);
+    Metric.writeSample(out, name + "_count", labels, cumulative);
+  }
+}
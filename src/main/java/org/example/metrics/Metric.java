@@ -0,0 +1,38 @@
+package org.example.metrics;
+
+/**
+ * A single series of a metric family, written in the Prometheus text format.
+ */
+interface Metric {
+  /**
+   * Writes the current value of the series.
+   *
+   * @param name   the name of the metric family
+   * @param labels the labels of the series as {@code key="value",...}, or an empty string
+   * @param out    the builder to write the sample lines to
+   */
+  void write(String name, String labels, StringBuilder out);
+
+  /**
+   * Writes a sample line.
+   *
+   * @param out    the builder to write to
+   * @param name   the name of the sample
+   * @param labels the labels of the sample, or an empty string
+   * @param value  the value of the sample
+   */
+  static void writeSample(StringBuilder out, String name, String labels, double value) {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ');
+    if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+      out.append((long) value);
+    }
+    else {
+      out.append(value);
+    }
+    out.append('\n');
+  }
+}
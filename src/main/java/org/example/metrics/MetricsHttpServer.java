@@ -0,0 +1,69 @@
+package org.example.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The MetricsHttpServer class serves the metrics of a registry on {@code GET /metrics}, for
+ * Prometheus to scrape. It uses the HTTP server built into the JDK, with a single thread.
+ */
+public class MetricsHttpServer {
+  private final MetricsRegistry registry;
+  private final HttpServer httpServer;
+
+  /**
+   * Creates a new instance of {@code MetricsHttpServer} bound to an address. The server does
+   * not accept requests until it is started.
+   *
+   * @param registry the registry to serve
+   * @param host     the host name or address to listen on
+   * @param port     the port to listen on
+   * @throws IOException if the address could not be bound
+   */
+  public MetricsHttpServer(MetricsRegistry registry, String host, int port) throws IOException {
+    this.registry = registry;
+    this.httpServer = HttpServer.create(new InetSocketAddress(host, port), 0);
+    this.httpServer.createContext("/metrics", this::handle);
+  }
+
+  /**
+   * Starts accepting requests on a background thread.
+   */
+  public void start() {
+    this.httpServer.start();
+  }
+
+  /**
+   * Gets the port the server listens on.
+   *
+   * @return the port
+   */
+  public int getPort() {
+    return this.httpServer.getAddress().getPort();
+  }
+
+  /**
+   * Answers a request with the current metrics.
+   *
+   * @param exchange the request and its response
+   * @throws IOException if the response could not be written
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"GET".equals(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      byte[] body = this.registry.scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream responseBody = exchange.getResponseBody()) {
+        responseBody.write(body);
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package org.example.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+
+/**
+ * The MetricsRegistry class holds the metrics of the server and writes them in the Prometheus
+ * text exposition format.
+ * <p>
+ * Metrics are registered once, usually at startup, and updated without locking afterwards.
+ * Series of the same family are told apart by labels, given as alternating names and values.
+ * Gauges are computed from a supplier each time the metrics are scraped.
+ */
+public class MetricsRegistry {
+  private final Map<String, Family> families;
+
+  /**
+   * Creates a new, empty instance of {@code MetricsRegistry}.
+   */
+  public MetricsRegistry() {
+    this.families = new LinkedHashMap<>();
+  }
+
+  /**
+   * Registers a counter.
+   *
+   * @param name   the name of the metric family
+   * @param help   the description of the metric family
+   * @param labels alternating label names and values
+   * @return the counter
+   */
+  public Counter counter(String name, String help, String... labels) {
+    Counter counter = new Counter();
+    this.register(name, help, "counter", labels, counter);
+    return counter;
+  }
+
+  /**
+   * Registers a histogram.
+   *
+   * @param name   the name of the metric family
+   * @param help   the description of the metric family
+   * @param bounds the inclusive upper bounds of the buckets, in ascending order
+   * @param scale  the factor the bounds and sum are multiplied by when written
+   * @param labels alternating label names and values
+   * @return the histogram
+   */
+  public Histogram histogram(String name, String help, long[] bounds, double scale,
+                             String... labels) {
+    Histogram histogram = new Histogram(bounds, scale);
+    this.register(name, help, "histogram", labels, histogram);
+    return histogram;
+  }
+
+  /**
+   * Registers a gauge whose value is read when the metrics are scraped.
+   *
+   * @param name   the name of the metric family
+   * @param help   the description of the metric family
+   * @param value  the supplier of the current value
+   * @param labels alternating label names and values
+   */
+  public void gauge(String name, String help, DoubleSupplier value, String... labels) {
+    this.register(name, help, "gauge", labels,
+                  (familyName, familyLabels, out) ->
+                      Metric.writeSample(out, familyName, familyLabels, value.getAsDouble()));
+  }
+
+  /**
+   * Writes every registered metric in the Prometheus text format.
+   *
+   * @return the exposition text
+   */
+  public synchronized String scrape() {
+    StringBuilder out = new StringBuilder(4096);
+    for (Family family : this.families.values()) {
+      out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      out.append("# TYPE ").append(family.name).append(' ').append(family.type).append('\n');
+      for (int index = 0; index < family.metrics.size(); index++) {
+        family.metrics.get(index).write(family.name, family.labels.get(index), out);
+      }
+    }
+    return out.toString();
+  }
+
+  /**
+   * Adds a series to its family, creating the family if needed.
+   *
+   * @param name   the name of the metric family
+   * @param help   the description of the metric family
+   * @param type   the Prometheus type of the metric family
+   * @param labels alternating label names and values
+   * @param metric the series to add
+   * @throws IllegalArgumentException if the family exists with another type
+   */
+  private synchronized void register(String name, String help, String type, String[] labels,
+                                     Metric metric) {
+    Family family = this.families.computeIfAbsent(name, key -> new Family(name, help, type));
+    if (!family.type.equals(type)) {
+      throw new IllegalArgumentException(name + " is already registered as a " + family.type);
+    }
+    StringBuilder labelText = new StringBuilder();
+    for (int index = 0; index + 1 < labels.length; index += 2) {
+      if (index > 0) {
+        labelText.append(',');
+      }
+      labelText.append(labels[index]).append("=\"")
+          .append(labels[index + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    }
+    family.labels.add(labelText.toString());
+    family.metrics.add(metric);
+  }
+
+  /**
+   * The series sharing a name, help text and type.
+   */
+  private static final class Family {
+    private final String name;
+    private final String help;
+    private final String type;
+    private final List<String> labels;
+    private final List<Metric> metrics;
+
+    private Family(String name, String help, String type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+      this.labels = new ArrayList<>();
+      this.metrics = new ArrayList<>();
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package org.example.network;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.example.ClientHandler;
+import org.example.Server;
+import org.example.log.Log;
+
+/**
+ * The NioClientHandler class represents a client connection served by a {@link NioEventLoop}.
+ * <p>
+ * Incoming bytes are framed into lines and handed to {@link #handleMessage(String)} on the event
+ * loop thread. Outgoing messages are queued in the connection's {@link OutboundQueue} and written
+ * by the event loop when the channel is writable, so sending never blocks the calling thread.
+ */
+public class NioClientHandler extends ClientHandler {
+  private static final int READ_BUFFER_SIZE = 8192;
+  private static final int MAX_LINE_LENGTH = 1 << 16;
+  private static final int MAX_BUFFERS_PER_WRITE = 64;
+  private final SocketChannel channel;
+  private final NioEventLoop eventLoop;
+  private final ByteBuffer readBuffer;
+  private final ByteBuffer[] writeBatch;
+  private final AtomicBoolean closed;
+  private SelectionKey selectionKey;
+  private byte[] lineBytes;
+  private int lineLength;
+
+  /**
+   * Creates a new instance of {@code NioClientHandler}.
+   *
+   * @param channel     the non-blocking channel connected to the client
+   * @param server      the main server application
+   * @param eventLoop   the event loop the channel is registered with
+   * @param hostAddress the IP address of the client
+   */
+  public NioClientHandler(SocketChannel channel, Server server, NioEventLoop eventLoop,
+                          String hostAddress) {
+    super(server, hostAddress);
+    this.channel = channel;
+    this.eventLoop = eventLoop;
+    this.readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    this.writeBatch = new ByteBuffer[MAX_BUFFERS_PER_WRITE];
+    this.closed = new AtomicBoolean(false);
+    this.lineBytes = new byte[256];
+    this.lineLength = 0;
+  }
+
+  /**
+   * Asks the event loop to write the queued messages.
+   */
+  @Override
+  protected void scheduleDrain() {
+    if (!this.closed.get()) {
+      this.eventLoop.scheduleWrite(this);
+    }
+  }
+
+  /**
+   * Closes the connection from the server side. The connection is closed by its event loop, so
+   * the disconnect cleanup never runs at the same time as a message from the client is handled.
+   */
+  @Override
+  protected void closeConnection() {
+    if (!this.closed.get()) {
+      this.eventLoop.scheduleClose(this);
+    }
+  }
+
+  /**
+   * Sets the selection key of the channel. Called by the event loop once the channel has been
+   * registered.
+   *
+   * @param selectionKey the selection key of the channel
+   */
+  void setSelectionKey(SelectionKey selectionKey) {
+    this.selectionKey = selectionKey;
+  }
+
+  /**
+   * Reads all available bytes from the channel and handles every complete line.
+   *
+   * @return {@code true} if the connection should stay open, or {@code false} if the client
+   *         has disconnected or the connection should be closed
+   * @throws IOException if reading from the channel fails
+   */
+  boolean read() throws IOException {
+    int bytesRead = this.channel.read(this.readBuffer);
+    if (bytesRead == -1) {
+      return false;
+    }
+    this.readBuffer.flip();
+    boolean isRunning = true;
+    while (isRunning && this.readBuffer.hasRemaining()) {
+      byte next = this.readBuffer.get();
+      if (next == '\n') {
+        int length = this.lineLength;
+        if (length > 0 && this.lineBytes[length - 1] == '\r') {
+          length--;
+        }
+        String line = new String(this.lineBytes, 0, length, StandardCharsets.UTF_8);
+        this.lineLength = 0;
+        isRunning = this.handleMessage(line);
+      }
+      else {
+        this.appendToLine(next);
+      }
+    }
+    this.readBuffer.clear();
+    return isRunning;
+  }
+
+  /**
+   * Appends a byte to the line currently being framed.
+   *
+   * @param next the byte to append
+   * @throws IOException if the line exceeds the maximum allowed length
+   */
+  private void appendToLine(byte next) throws IOException {
+    if (this.lineLength == this.lineBytes.length) {
+      if (this.lineBytes.length >= MAX_LINE_LENGTH) {
+        throw new IOException("Line exceeds " + MAX_LINE_LENGTH + " bytes");
+      }
+      byte[] grown = new byte[this.lineBytes.length * 2];
+      System.arraycopy(this.lineBytes, 0, grown, 0, this.lineLength);
+      this.lineBytes = grown;
+    }
+    this.lineBytes[this.lineLength++] = next;
+  }
+
+  /**
+   * Writes as much of the queued outbound data as the channel accepts, combining the queued
+   * messages into gathering writes, and updates the write interest of the channel accordingly.
+   *
+   * @throws IOException if writing to the channel fails
+   */
+  void flush() throws IOException {
+    OutboundQueue outboundQueue = this.getOutboundQueue();
+    do {
+      boolean channelFull = false;
+      while (!channelFull && outboundQueue.peek() != null) {
+        int count = 0;
+        Iterator<ByteBuffer> iterator = outboundQueue.iterator();
+        while (count < MAX_BUFFERS_PER_WRITE && iterator.hasNext()) {
+          this.writeBatch[count++] = iterator.next();
+        }
+        long bytesWritten = this.channel.write(this.writeBatch, 0, count);
+        outboundQueue.written(bytesWritten);
+        channelFull = this.writeBatch[count - 1].hasRemaining();
+        for (int i = 0; i < count; i++) {
+          if (!this.writeBatch[i].hasRemaining()) {
+            outboundQueue.poll();
+          }
+          this.writeBatch[i] = null;
+        }
+      }
+      if (channelFull) {
+        this.selectionKey.interestOps(this.selectionKey.interestOps() | SelectionKey.OP_WRITE);
+        return;
+      }
+    } while (outboundQueue.finishDrain());
+    this.selectionKey.interestOps(this.selectionKey.interestOps() & ~SelectionKey.OP_WRITE);
+  }
+
+  /**
+   * Closes the connection. The disconnect cleanup is only run the first time the connection is
+   * closed. Must only be called by the event loop of the connection.
+   */
+  void close() {
+    if (this.closed.compareAndSet(false, true)) {
+      if (this.selectionKey != null) {
+        this.selectionKey.cancel();
+      }
+      try {
+        this.channel.close();
+      }
+      catch (IOException exception) {
+        Log.warn("Failed to close channel", "exception", exception);
+      }
+      this.getOutboundQueue().clear();
+      this.handleDisconnect();
+    }
+  }
+}
@@ -0,0 +1,163 @@
+package org.example.network;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.example.Server;
+import org.example.log.Log;
+
+/**
+ * The NioEventLoop class represents a single selector thread serving many client connections.
+ * <p>
+ * It reads and frames incoming lines, dispatches them to the connection's
+ * {@link NioClientHandler}, and writes queued outbound messages when channels become writable.
+ */
+public class NioEventLoop implements Runnable {
+  private final Server server;
+  private final Selector selector;
+  private final Queue<SocketChannel> pendingChannels;
+  private final Queue<NioClientHandler> pendingWrites;
+  private final Queue<NioClientHandler> pendingCloses;
+
+  /**
+   * Creates a new instance of {@code NioEventLoop}.
+   *
+   * @param server the main server application
+   * @throws IOException if the selector could not be opened
+   */
+  public NioEventLoop(Server server) throws IOException {
+    this.server = server;
+    this.selector = Selector.open();
+    this.pendingChannels = new ConcurrentLinkedQueue<>();
+    this.pendingWrites = new ConcurrentLinkedQueue<>();
+    this.pendingCloses = new ConcurrentLinkedQueue<>();
+  }
+
+  /**
+   * Hands a newly accepted channel over to this event loop. May be called from any thread.
+   *
+   * @param channel the accepted channel
+   */
+  public void register(SocketChannel channel) {
+    this.pendingChannels.add(channel);
+    this.selector.wakeup();
+  }
+
+  /**
+   * Asks this event loop to write the queued messages of a connection. May be called from any
+   * thread.
+   *
+   * @param clientHandler the connection with queued messages
+   */
+  void scheduleWrite(NioClientHandler clientHandler) {
+    this.pendingWrites.add(clientHandler);
+    this.selector.wakeup();
+  }
+
+  /**
+   * Asks this event loop to close a connection, so the disconnect cleanup runs on the thread
+   * that handles the connection's messages. May be called from any thread.
+   *
+   * @param clientHandler the connection to close
+   */
+  void scheduleClose(NioClientHandler clientHandler) {
+    this.pendingCloses.add(clientHandler);
+    this.selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        this.selector.select();
+        this.registerPendingChannels();
+        this.flushPendingWrites();
+        this.closePendingConnections();
+        Iterator<SelectionKey> iterator = this.selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+          SelectionKey key = iterator.next();
+          iterator.remove();
+          this.processKey(key);
+        }
+      }
+      catch (IOException exception) {
+        Log.error("Event loop failed to select", "exception", exception);
+      }
+    }
+  }
+
+  /**
+   * Registers the channels handed over since the last iteration.
+   */
+  private void registerPendingChannels() {
+    SocketChannel channel = this.pendingChannels.poll();
+    while (channel != null) {
+      try {
+        channel.configureBlocking(false);
+        String hostAddress = channel.socket().getInetAddress().getHostAddress();
+        NioClientHandler clientHandler =
+            new NioClientHandler(channel, this.server, this, hostAddress);
+        SelectionKey key = channel.register(this.selector, SelectionKey.OP_READ, clientHandler);
+        clientHandler.setSelectionKey(key);
+        clientHandler.startIdleChecks();
+      }
+      catch (IOException exception) {
+        Log.warn("Failed to register channel", "exception", exception);
+      }
+      channel = this.pendingChannels.poll();
+    }
+  }
+
+  /**
+   * Writes the messages queued for the connections scheduled since the last iteration.
+   */
+  private void flushPendingWrites() {
+    NioClientHandler clientHandler = this.pendingWrites.poll();
+    while (clientHandler != null) {
+      try {
+        clientHandler.flush();
+      }
+      catch (IOException | CancelledKeyException exception) {
+        clientHandler.close();
+      }
+      clientHandler = this.pendingWrites.poll();
+    }
+  }
+
+  /**
+   * Closes the connections scheduled to be closed since the last iteration.
+   */
+  private void closePendingConnections() {
+    NioClientHandler clientHandler = this.pendingCloses.poll();
+    while (clientHandler != null) {
+      clientHandler.close();
+      clientHandler = this.pendingCloses.poll();
+    }
+  }
+
+  /**
+   * Handles the ready operations of a single selection key.
+   *
+   * @param key the selected key
+   */
+  private void processKey(SelectionKey key) {
+    NioClientHandler clientHandler = (NioClientHandler) key.attachment();
+    try {
+      if (key.isValid() && key.isWritable()) {
+        clientHandler.flush();
+      }
+      if (key.isValid() && key.isReadable() && !clientHandler.read()) {
+        clientHandler.flush();
+        clientHandler.close();
+      }
+    }
+    catch (IOException | CancelledKeyException exception) {
+      clientHandler.close();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package org.example.network;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import org.example.Server;
+import org.example.log.Log;
+
+/**
+ * The NioServer class accepts client connections on a {@link ServerSocketChannel} and spreads
+ * them over a fixed set of {@link NioEventLoop} threads.
+ */
+public class NioServer {
+  private final int port;
+  private final NioEventLoop[] eventLoops;
+  private int nextEventLoop;
+
+  /**
+   * Creates a new instance of {@code NioServer}.
+   *
+   * @param server           the main server application
+   * @param port             the port to accept connections on
+   * @param eventLoopThreads the number of event loop threads
+   * @throws IOException if an event loop could not be created
+   */
+  public NioServer(Server server, int port, int eventLoopThreads) throws IOException {
+    this.port = port;
+    this.eventLoops = new NioEventLoop[eventLoopThreads];
+    for (int i = 0; i < eventLoopThreads; i++) {
+      this.eventLoops[i] = new NioEventLoop(server);
+    }
+    this.nextEventLoop = 0;
+  }
+
+  /**
+   * Starts the event loop threads and accepts connections on the calling thread until the
+   * server socket fails.
+   */
+  public void start() {
+    for (int i = 0; i < this.eventLoops.length; i++) {
+      Thread eventLoopThread = new Thread(this.eventLoops[i], "nio-event-loop-" + i);
+      eventLoopThread.start();
+    }
+    try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+      serverChannel.bind(new InetSocketAddress(this.port));
+      Log.info("Server started", "port", this.port, "eventLoops", this.eventLoops.length);
+      while (true) {
+        SocketChannel channel = serverChannel.accept();
+        this.eventLoops[this.nextEventLoop].register(channel);
+        this.nextEventLoop = (this.nextEventLoop + 1) % this.eventLoops.length;
+      }
+    }
+    catch (IOException exception) {
+      Log.error("Failed to open a server socket channel", "exception", exception);
+    }
+  }
+}
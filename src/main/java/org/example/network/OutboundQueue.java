@@ -0,0 +1,126 @@
+package org.example.network;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The OutboundQueue class represents the messages waiting to be written to a single client.
+ * <p>
+ * Any number of threads may add messages, while exactly one writer drains the queue at a time.
+ * {@link #add(ByteBuffer)} tells the caller when a writer has to be scheduled, and
+ * {@link #finishDrain()} tells the writer whether it has to go around once more.
+ */
+public class OutboundQueue {
+  private final Queue<ByteBuffer> messages;
+  private final AtomicBoolean drainScheduled;
+  private final AtomicInteger queuedMessages;
+  private final AtomicLong queuedBytes;
+
+  /**
+   * Creates a new, empty instance of {@code OutboundQueue}.
+   */
+  public OutboundQueue() {
+    this.messages = new ConcurrentLinkedQueue<>();
+    this.drainScheduled = new AtomicBoolean(false);
+    this.queuedMessages = new AtomicInteger(0);
+    this.queuedBytes = new AtomicLong(0);
+  }
+
+  /**
+   * Adds an encoded message to the end of the queue.
+   *
+   * @param message the encoded message, positioned at its first byte
+   * @return {@code true} if no writer was scheduled and the caller must schedule one, or
+   *         {@code false} if a writer is already scheduled
+   */
+  public boolean add(ByteBuffer message) {
+    this.queuedBytes.addAndGet(message.remaining());
+    this.queuedMessages.incrementAndGet();
+    this.messages.add(message);
+    return this.drainScheduled.compareAndSet(false, true);
+  }
+
+  /**
+   * Gets the message at the head of the queue without removing it.
+   *
+   * @return the message at the head of the queue, or {@code null} if the queue is empty
+   */
+  public ByteBuffer peek() {
+    return this.messages.peek();
+  }
+
+  /**
+   * Gets an iterator over the queued messages, from head to tail. Only the writer may use it.
+   *
+   * @return an iterator over the queued messages
+   */
+  public Iterator<ByteBuffer> iterator() {
+    return this.messages.iterator();
+  }
+
+  /**
+   * Removes the message at the head of the queue.
+   *
+   * @return the removed message, or {@code null} if the queue is empty
+   */
+  public ByteBuffer poll() {
+    ByteBuffer message = this.messages.poll();
+    if (message != null) {
+      this.queuedMessages.decrementAndGet();
+      this.queuedBytes.addAndGet(-message.remaining());
+    }
+    return message;
+  }
+
+  /**
+   * Records that bytes of the message at the head of the queue have been written.
+   *
+   * @param bytesWritten the number of bytes written
+   */
+  public void written(long bytesWritten) {
+    this.queuedBytes.addAndGet(-bytesWritten);
+  }
+
+  /**
+   * Marks the current drain as finished.
+   *
+   * @return {@code true} if messages were added in the meantime and the writer must drain the
+   *         queue once more, or {@code false} if the writer can stop
+   */
+  public boolean finishDrain() {
+    this.drainScheduled.set(false);
+    return !this.messages.isEmpty() && this.drainScheduled.compareAndSet(false, true);
+  }
+
+  /**
+   * Gets the number of messages waiting to be written.
+   *
+   * @return the number of queued messages
+   */
+  public int size() {
+    return this.queuedMessages.get();
+  }
+
+  /**
+   * Gets the number of bytes waiting to be written.
+   *
+   * @return the number of queued bytes
+   */
+  public long getQueuedBytes() {
+    return this.queuedBytes.get();
+  }
+
+  /**
+   * Removes all queued messages.
+   */
+  public void clear() {
+    while (this.poll() != null) {
+      // Discard the message.
+    }
+  }
+}
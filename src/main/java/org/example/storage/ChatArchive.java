@@ -0,0 +1,59 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The ChatArchive class is an append-only file of chat messages that no longer fit in a game's
+ * chat log.
+ * <p>
+ * Each message is written as one line, {@code gameName gameNumber message}, where the message is
+ * stored exactly as it is kept in the game. The file is only appended to, so the archive grows on
+ * disk instead of on the heap.
+ */
+public class ChatArchive {
+  private final FileChannel channel;
+  private final Lock lock;
+
+  /**
+   * Opens the archive, creating the file and its directory if they do not exist.
+   *
+   * @param file the archive file
+   * @throws IOException if the file could not be opened
+   */
+  public ChatArchive(Path file) throws IOException {
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                    StandardOpenOption.APPEND);
+    this.lock = new ReentrantLock();
+  }
+
+  /**
+   * Appends a message to the archive.
+   *
+   * @param gameName   the name of the game the message was sent in
+   * @param gameNumber the number of the game the message was sent in
+   * @param message    the message, as kept in the game
+   * @throws IOException if the message could not be written
+   */
+  public void append(String gameName, int gameNumber, String message) throws IOException {
+    ByteBuffer line = ByteBuffer.wrap((gameName + " " + gameNumber + " " + message + "\n")
+                                          .getBytes(StandardCharsets.UTF_8));
+    this.lock.lock();
+    try {
+      while (line.hasRemaining()) {
+        this.channel.write(line);
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package org.example.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The FinishedGameStore class is an append-only, memory-mapped store for finished games.
+ * <p>
+ * Each finished game is stored as its encoded {@code UPDATE FINISHED_GAME} message, exactly as
+ * it is sent to clients. Records are appended to fixed-size segment files
+ * ({@code finished-games-00000.seg}, ...) as a 4 byte length followed by the message bytes. A
+ * record never spans two segments, and a zero length marks the end of the written part of a
+ * segment. An in-memory offset index, rebuilt by scanning the segments on startup, maps the
+ * index of a game to its record, so any historical game can be read straight from the mapped
+ * segments. Only a bounded number of recently read games are kept on the heap as strings.
+ */
+public class FinishedGameStore {
+  private static final String SEGMENT_PREFIX = "finished-games-";
+  private static final String SEGMENT_SUFFIX = ".seg";
+  private static final int LENGTH_BYTES = Integer.BYTES;
+  private final Path directory;
+  private final int segmentSize;
+  private final List<MappedByteBuffer> segments;
+  private final Map<Integer, String> recentGames;
+  private final Lock lock;
+  private long[] offsets;
+  private int size;
+
+  /**
+   * Opens the store in a directory, creating the directory if it does not exist, and indexes
+   * the games already stored there.
+   *
+   * @param directory   the directory holding the segment files
+   * @param segmentSize the size (in bytes) of each segment file
+   * @param cacheSize   the maximum number of games kept on the heap
+   * @throws IOException if the directory or a segment file could not be opened
+   */
+  public FinishedGameStore(Path directory, int segmentSize, int cacheSize) throws IOException {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.segments = new ArrayList<>();
+    this.recentGames = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+        return this.size() > cacheSize;
+      }
+    };
+    this.lock = new ReentrantLock();
+    this.offsets = new long[64];
+    this.size = 0;
+    Files.createDirectories(directory);
+    Path segmentPath = this.segmentPath(0);
+    while (Files.exists(segmentPath)) {
+      this.indexSegment(this.mapSegment(segmentPath));
+      segmentPath = this.segmentPath(this.segments.size());
+    }
+  }
+
+  /**
+   * Appends a finished game to the store.
+   *
+   * @param encodedGame the encoded {@code UPDATE FINISHED_GAME} message, including the line
+   *                    terminator
+   * @return the index of the stored game
+   * @throws IOException if a new segment file could not be created
+   */
+  public int append(ByteBuffer encodedGame) throws IOException {
+    int length = encodedGame.remaining();
+    if (length + 2 * LENGTH_BYTES > this.segmentSize) {
+      throw new IOException("A finished game of " + length + " bytes does not fit in a segment");
+    }
+    this.lock.lock();
+    try {
+      MappedByteBuffer segment = this.segments.isEmpty() ? null
+          : this.segments.get(this.segments.size() - 1);
+      int position = this.size == 0 ? 0 : this.endOfLastRecord();
+      if (segment == null || position + length + 2 * LENGTH_BYTES > this.segmentSize) {
+        segment = this.mapSegment(this.segmentPath(this.segments.size()));
+        position = 0;
+      }
+      segment.put(position + LENGTH_BYTES, encodedGame, encodedGame.position(), length);
+      segment.putInt(position, length);
+      segment.force(position, length + LENGTH_BYTES);
+      this.addOffset(this.segments.size() - 1, position);
+      return this.size - 1;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of stored games.
+   *
+   * @return the number of stored games
+   */
+  public int size() {
+    this.lock.lock();
+    try {
+      return this.size;
+    }
+    finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Reads the encoded message of a stored game straight from its mapped segment.
+   *
+   * @param index the index of the game
+   * @return a read-only buffer holding the encoded message, including the line terminator
+   * @throws IndexOutOfBoundsException if there is no game with the given index
+   */
+  public ByteBuffer read(int index) {
+    MappedByteBuffer segment;
+    int position;
+    this.lock.lock();
+    try {
+      if (index < 0 || index >= this.size) {
+        throw new IndexOutOfBoundsException("No finished game with index " + index);
+      }
+      long offset = this.offsets[index];
+      segment = this.segments.get((int) (offset >>> 32));
+      position = (int) offset;
+    }
+    finally {
+      this.lock.unlock();
+    }
+    int length = segment.getInt(position);
+    return segment.slice(position + LENGTH_BYTES, length).asReadOnlyBuffer();
+  }
+
+  /**
+   * Reads the message of a stored game as a string, without the line terminator. Recently read
+   * games are served from the heap.
+   *
+   * @param index the index of the game
+   * @return the {@code UPDATE FINISHED_GAME} message of the game
+   * @throws IndexOutOfBoundsException if there is no game with the given index
+   */
+  public String readString(int index) {
+    this.lock.lock();
+    try {
+      String cachedGame = this.recentGames.get(index);
+      if (cachedGame != null) {
+        return cachedGame;
+      }
+    }
+    finally {
+      this.lock.unlock();
+    }
+    ByteBuffer encodedGame = this.read(index);
+    byte[] bytes = new byte[encodedGame.remaining()];
+    encodedGame.get(bytes);
+    int length = bytes.length;
+    while (length > 0 && (bytes[length - 1] == '\n' || bytes[length - 1] == '\r')) {
+      length--;
+    }
+    String game = new String(bytes, 0, length, StandardCharsets.UTF_8);
+    this.lock.lock();
+    try {
+      this.recentGames.put(index, game);
+    }
+    finally {
+      this.lock.unlock();
+    }
+    return game;
+  }
+
+  /**
+   * Gets the path of a segment file.
+   *
+   * @param segmentNumber the number of the segment
+   * @return the path of the segment file
+   */
+  private Path segmentPath(int segmentNumber) {
+    return this.directory.resolve(
+        SEGMENT_PREFIX + String.format("%05d", segmentNumber) + SEGMENT_SUFFIX);
+  }
+
+  /**
+   * Maps a segment file into memory, creating it if it does not exist, and adds it to the
+   * list of segments.
+   *
+   * @param segmentPath the path of the segment file
+   * @return the mapped segment
+   * @throws IOException if the file could not be opened or mapped
+   */
+  private MappedByteBuffer mapSegment(Path segmentPath) throws IOException {
+    try (FileChannel channel = FileChannel.open(segmentPath, StandardOpenOption.CREATE,
+                                                StandardOpenOption.READ,
+                                                StandardOpenOption.WRITE)) {
+      MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+      this.segments.add(segment);
+      return segment;
+    }
+  }
+
+  /**
+   * Adds the records of a mapped segment to the offset index.
+   *
+   * @param segment the segment to index
+   */
+  private void indexSegment(MappedByteBuffer segment) {
+    int segmentNumber = this.segments.size() - 1;
+    int position = 0;
+    while (position + LENGTH_BYTES <= this.segmentSize) {
+      int length = segment.getInt(position);
+      if (length <= 0 || position + LENGTH_BYTES + length > this.segmentSize) {
+        return;
+      }
+      this.addOffset(segmentNumber, position);
+      position += LENGTH_BYTES + length;
+    }
+  }
+
+  /**
+   * Gets the position right after the last record in the last segment.
+   *
+   * @return the position after the last record
+   */
+  private int endOfLastRecord() {
+    long offset = this.offsets[this.size - 1];
+    int lastSegment = this.segments.size() - 1;
+    if ((int) (offset >>> 32) != lastSegment) {
+      return 0;
+    }
+    int position = (int) offset;
+    return position + LENGTH_BYTES + this.segments.get(lastSegment).getInt(position);
+  }
+
+  /**
+   * Adds a record to the offset index.
+   *
+   * @param segmentNumber the number of the segment holding the record
+   * @param position      the position of the record in the segment
+   */
+  private void addOffset(int segmentNumber, int position) {
+    if (this.size == this.offsets.length) {
+      this.offsets = Arrays.copyOf(this.offsets, this.offsets.length * 2);
+    }
+    this.offsets[this.size++] = ((long) segmentNumber << 32) | position;
+  }
+}